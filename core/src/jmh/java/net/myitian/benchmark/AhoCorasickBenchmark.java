@@ -0,0 +1,67 @@
+package net.myitian.benchmark;
+
+import net.myitian.AhoCorasick;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * One {@link AhoCorasick} scan against one {@link String#indexOf(String)} per needle, as a chat filter would do it
+ * with {@code contains}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class AhoCorasickBenchmark {
+    @Param({"10", "100", "1000"})
+    public int needleCount;
+
+    private List<String> needles;
+    private String message;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        needles = new ArrayList<>(needleCount);
+        for (int i = 0; i < needleCount; i++) {
+            needles.add(randomWord(random, 4 + random.nextInt(6)));
+        }
+        StringBuilder sb = new StringBuilder();
+        while (sb.length() < 256) {
+            sb.append(randomWord(random, 1 + random.nextInt(8))).append(' ');
+        }
+        message = sb.toString();
+        AhoCorasick.of(needles);
+    }
+
+    private static String randomWord(Random random, int length) {
+        char[] chars = new char[length];
+        for (int i = 0; i < length; i++) {
+            chars[i] = (char) ('a' + random.nextInt(26));
+        }
+        return new String(chars);
+    }
+
+    @Benchmark
+    public boolean containsAnyIndexOf() {
+        for (String needle : needles) {
+            if (message.contains(needle)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    @Benchmark
+    public boolean containsAnyAutomaton() {
+        return AhoCorasick.of(needles).containsAny(message);
+    }
+
+    @Benchmark
+    public int[] matchAllAutomaton() {
+        return AhoCorasick.of(needles).matchAll(message);
+    }
+}
@@ -0,0 +1,85 @@
+package net.myitian.benchmark;
+
+import net.myitian.ParallelStrings;
+import net.myitian.StringExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Sequential against fork-join list operations over growing list sizes, to find where
+ * {@link ParallelStrings#DEFAULT_THRESHOLD} should be. The parallel benchmarks always fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class ParallelStringsBenchmark {
+    private static final String ELEMENT = "Lorem ipsum dolor sit amet \uD83D\uDE00";
+
+    @Param({"1024", "4096", "8192", "16384", "65536", "262144"})
+    public int size;
+
+    private String[] strings;
+    private int[] codePoints;
+
+    @Setup
+    public void setup() {
+        strings = new String[size];
+        for (int i = 0; i < size; i++) {
+            strings[i] = ELEMENT + i;
+        }
+        codePoints = StringExtension.concat(strings).codePoints().limit(size).toArray();
+        ParallelStrings.setThreshold(1);
+    }
+
+    @TearDown
+    public void tearDown() {
+        ParallelStrings.setThreshold(ParallelStrings.DEFAULT_THRESHOLD);
+    }
+
+    @Benchmark
+    public String concatSequential() {
+        return StringExtension.concat(strings);
+    }
+
+    @Benchmark
+    public String concatParallel() {
+        return ParallelStrings.concat(strings);
+    }
+
+    @Benchmark
+    public String joinSequential() {
+        return StringExtension.join(", ", strings);
+    }
+
+    @Benchmark
+    public String joinParallel() {
+        return ParallelStrings.join(", ", strings);
+    }
+
+    @Benchmark
+    public String fromCodePointsSequential() {
+        return StringExtension.fromCodePoints(codePoints);
+    }
+
+    @Benchmark
+    public String fromCodePointsParallel() {
+        return ParallelStrings.fromCodePoints(codePoints);
+    }
+
+    @Benchmark
+    public String[] mapSequential() {
+        String[] result = new String[size];
+        for (int i = 0; i < size; i++) {
+            result[i] = StringExtension.strip(strings[i]).toLowerCase();
+        }
+        return result;
+    }
+
+    @Benchmark
+    public String[] mapParallel() {
+        String[] result = new String[size];
+        ParallelStrings.map(strings, result, s -> StringExtension.strip(s).toLowerCase());
+        return result;
+    }
+}
@@ -0,0 +1,56 @@
+package net.myitian.benchmark;
+
+import net.myitian.RegexBudget;
+import net.myitian.RegexEngine;
+import net.myitian.StringExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@link RegexEngine#JAVA} against {@link RegexEngine#LINEAR} on an ordinary pattern and on one that backtracks
+ * catastrophically on {@code java.util.regex}. The time budget is off, so the Java engine runs to completion.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+public class RegexEngineBenchmark {
+    private static final String WORDS = "[a-z]+(?:-[a-z]+)*";
+    private static final String NESTED = "(?:a|aa)+b";
+
+    @Param({"JAVA", "LINEAR"})
+    public RegexEngine engine;
+
+    @Param({"16", "24"})
+    public int length;
+
+    private String text;
+    private String as;
+
+    @Setup
+    public void setup() {
+        text = "lorem-ipsum dolor sit-amet ".repeat(length);
+        as = "a".repeat(length);
+        RegexBudget.setTimeoutMillis(0);
+    }
+
+    @TearDown
+    public void tearDown() {
+        RegexBudget.setTimeoutMillis(RegexBudget.DEFAULT_TIMEOUT_MILLIS);
+    }
+
+    @Benchmark
+    public Object matchesAllWords() {
+        return StringExtension.matchesAll(text, WORDS, engine);
+    }
+
+    @Benchmark
+    public String replaceAllWords() {
+        return StringExtension.replaceAll(text, WORDS, "<$0>", engine);
+    }
+
+    @Benchmark
+    public boolean matchesNested() {
+        return StringExtension.matches(as, NESTED, engine);
+    }
+}
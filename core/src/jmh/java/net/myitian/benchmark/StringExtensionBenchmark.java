@@ -0,0 +1,127 @@
+package net.myitian.benchmark;
+
+import net.myitian.CodePointSet;
+import net.myitian.StringExtension;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Pattern;
+
+/**
+ * Benchmarks of the string operations behind {@code /string}, from a short name up to a 1 MB book export.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+public class StringExtensionBenchmark {
+    private static final String TEXT = "  Lorem ipsum dolor sit amet, consectetur adipiscing elit.\tSed do eiusmod tempor \uD83D\uDE00 incididunt ut labore.\n";
+
+    @Param({"10", "1000", "100000", "1048576"})
+    public int length;
+
+    private String text;
+    private String paddedText;
+    private String[] parts;
+    private int[] codePoints;
+    private CodePointSet trimChars;
+    private Pattern wordPattern;
+
+    @Setup
+    public void setup() {
+        var sb = new StringBuilder(length + TEXT.length());
+        while (sb.length() < length) {
+            sb.append(TEXT);
+        }
+        sb.setLength(length);
+        // Do not cut a surrogate pair in half
+        if (length > 0 && Character.isHighSurrogate(sb.charAt(length - 1))) {
+            sb.setCharAt(length - 1, 'x');
+        }
+        text = sb.toString();
+        paddedText = "-_-_ \t" + text + " \t-_-_";
+        parts = text.split(" ");
+        codePoints = text.codePoints().toArray();
+        trimChars = CodePointSet.of("-_ \t");
+        wordPattern = Pattern.compile("\\w+");
+    }
+
+    @Benchmark
+    public String trim() {
+        return StringExtension.trim(paddedText, null);
+    }
+
+    @Benchmark
+    public String trimChars() {
+        return StringExtension.trim(paddedText, trimChars);
+    }
+
+    @Benchmark
+    public String strip() {
+        return StringExtension.strip(paddedText);
+    }
+
+    @Benchmark
+    public String[] splitSingleChar() {
+        return StringExtension.split(text, " ", 0);
+    }
+
+    @Benchmark
+    public String[] splitRegex() {
+        return StringExtension.split(text, "[,.]\\s*", 0);
+    }
+
+    @Benchmark
+    public String join() {
+        return StringExtension.join(", ", parts);
+    }
+
+    @Benchmark
+    public String concat() {
+        return StringExtension.concat(parts);
+    }
+
+    @Benchmark
+    public String replace() {
+        return text.replace("ipsum", "IPSUM");
+    }
+
+    @Benchmark
+    public String replaceAll() {
+        return StringExtension.replaceAll(text, "\\s+", " ");
+    }
+
+    @Benchmark
+    public String replaceFirst() {
+        return StringExtension.replaceFirst(text, "d\\w+", "D");
+    }
+
+    @Benchmark
+    public boolean matches() {
+        return StringExtension.matches(text, "[\\s\\S]*elit[\\s\\S]*");
+    }
+
+    @Benchmark
+    public int matchesAll() {
+        return StringExtension.matchesAll(wordPattern.matcher(text)).size();
+    }
+
+    @Benchmark
+    public String escapeRegex() {
+        return StringExtension.escapeRegex(text);
+    }
+
+    @Benchmark
+    public int[] toCodePoints() {
+        return StringExtension.toCodePoints(text);
+    }
+
+    @Benchmark
+    public String[] toCodePointStrings() {
+        return StringExtension.toCodePointStrings(text);
+    }
+
+    @Benchmark
+    public String fromCodePoints() {
+        return StringExtension.fromCodePoints(codePoints);
+    }
+}
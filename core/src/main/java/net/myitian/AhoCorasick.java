@@ -0,0 +1,392 @@
+package net.myitian;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+
+/**
+ * An Aho-Corasick automaton over a list of literal needles, for finding any of them in one pass over the input.
+ * <p>
+ * The automaton keeps the trie of the needles with a fail link for each state. When the chars used by the needles
+ * are few enough that a table of every state and char stays small, it is turned into a full DFA instead, where any
+ * char not in a needle leads back to the root. Matches are leftmost-longest and never overlap, so at each position
+ * the longest needle starting there wins, and a needle listed twice matches as its first index. Empty needles are
+ * ignored.
+ */
+public final class AhoCorasick {
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+    /**
+     * The most chars all needles of one automaton may have together
+     */
+    public static final int MAX_NEEDLE_CHARS = 1 << 20;
+    /**
+     * The most cells of a DFA table, 256 KiB per cached automaton
+     */
+    private static final int MAX_TABLE_SIZE = 1 << 16;
+
+    private static final LruCache<List<String>, AhoCorasick> CACHE = new LruCache<>(DEFAULT_CACHE_CAPACITY);
+
+    private final int needleCount;
+    private final int maxLength;
+    /**
+     * The sorted distinct chars of the needles, if there is a DFA table
+     */
+    private final char[] alphabet;
+    /**
+     * The index in the alphabet of each ASCII char, or -1, if there is a DFA table
+     */
+    private final int[] asciiIndex;
+    /**
+     * {@code transitions[state * alphabet.length + charIndex]}, or null to follow the trie and its fail links
+     */
+    private final int[] transitions;
+    /**
+     * The trie edges of each state are {@code edgeStarts[state]} to {@code edgeStarts[state + 1]}, sorted by char.
+     * Null if there is a DFA table.
+     */
+    private final int[] edgeStarts;
+    private final char[] edgeChars;
+    private final int[] edgeTargets;
+    private final int[] fails;
+    /**
+     * The needle ending at each state, or -1
+     */
+    private final int[] needles;
+    private final int[] lengths;
+    /**
+     * The nearest state on the fail chain of each state that has a needle, or -1
+     */
+    private final int[] outputLinks;
+
+    private AhoCorasick(int needleCount, int maxLength, Trie trie, int[] outputLinks, char[] alphabet, int[] transitions) {
+        this.needleCount = needleCount;
+        this.maxLength = maxLength;
+        this.needles = trie.needles;
+        this.lengths = trie.lengths;
+        this.outputLinks = outputLinks;
+        if (transitions == null) {
+            this.alphabet = null;
+            this.asciiIndex = null;
+            this.transitions = null;
+            this.edgeStarts = trie.edgeStarts;
+            this.edgeChars = trie.edgeChars;
+            this.edgeTargets = trie.edgeTargets;
+            this.fails = trie.fails;
+        } else {
+            this.alphabet = alphabet;
+            this.asciiIndex = new int[128];
+            Arrays.fill(asciiIndex, -1);
+            for (int i = 0; i < alphabet.length && alphabet[i] < 128; i++) {
+                asciiIndex[alphabet[i]] = i;
+            }
+            this.transitions = transitions;
+            this.edgeStarts = null;
+            this.edgeChars = null;
+            this.edgeTargets = null;
+            this.fails = null;
+        }
+    }
+
+    /**
+     * Returns the automaton of the given needles, or the cached result of an earlier call with equal needles.
+     */
+    public static AhoCorasick of(List<String> needles) {
+        AhoCorasick automaton = CACHE.get(needles);
+        if (automaton == null) {
+            needles = List.copyOf(needles);
+            automaton = create(needles);
+            CACHE.put(needles, automaton);
+        }
+        return automaton;
+    }
+
+    /**
+     * @throws StringTooLongException if the needles have more than {@link #MAX_NEEDLE_CHARS} chars together
+     */
+    public static AhoCorasick create(List<String> needles) {
+        long totalLength = 0;
+        int maxLength = 0;
+        for (String needle : needles) {
+            totalLength += needle.length();
+            maxLength = Math.max(maxLength, needle.length());
+        }
+        if (totalLength > MAX_NEEDLE_CHARS) {
+            throw new StringTooLongException(totalLength, MAX_NEEDLE_CHARS);
+        }
+        var trie = new Trie(needles, (int) totalLength);
+
+        // Breadth-first, so the fail state of each state is done before it
+        int stateCount = trie.lengths.length;
+        int[] fails = trie.fails;
+        int[] outputLinks = new int[stateCount];
+        outputLinks[0] = -1;
+        int[] order = new int[stateCount];
+        int head = 0;
+        int tail = 1;
+        while (head < tail) {
+            int state = order[head++];
+            for (int e = trie.edgeStarts[state]; e < trie.edgeStarts[state + 1]; e++) {
+                int next = trie.edgeTargets[e];
+                int fail = 0;
+                if (state != 0) {
+                    fail = trie.next(fails[state], trie.edgeChars[e]);
+                }
+                fails[next] = fail;
+                outputLinks[next] = trie.needles[fail] >= 0 ? fail : outputLinks[fail];
+                order[tail++] = next;
+            }
+        }
+
+        char[] alphabet = trie.alphabet();
+        int tableSize;
+        try {
+            tableSize = Math.multiplyExact(stateCount, alphabet.length);
+        } catch (ArithmeticException e) {
+            tableSize = Integer.MAX_VALUE;
+        }
+        if (tableSize > MAX_TABLE_SIZE) {
+            return new AhoCorasick(needles.size(), maxLength, trie, outputLinks, null, null);
+        }
+        int[] transitions = new int[tableSize];
+        for (int i = 0; i < stateCount; i++) {
+            int state = order[i];
+            int base = state * alphabet.length;
+            int failBase = fails[state] * alphabet.length;
+            for (int c = 0; c < alphabet.length; c++) {
+                int next = trie.edge(state, alphabet[c]);
+                transitions[base + c] = next >= 0 ? next : state == 0 ? 0 : transitions[failBase + c];
+            }
+        }
+        return new AhoCorasick(needles.size(), maxLength, trie, outputLinks, alphabet, transitions);
+    }
+
+    public static int getCacheCapacity() {
+        return CACHE.getCapacity();
+    }
+
+    public static void setCacheCapacity(int capacity) {
+        CACHE.setCapacity(capacity);
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    /**
+     * @return the count of needles, including empty ones
+     */
+    public int needleCount() {
+        return needleCount;
+    }
+
+    public boolean containsAny(CharSequence s) {
+        int state = 0;
+        for (int i = 0, len = s.length(); i < len; i++) {
+            state = next(state, s.charAt(i));
+            if (needles[state] >= 0 || outputLinks[state] >= 0) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * @return the index of the first occurrence of any needle, or -1 if there is none
+     */
+    public int indexOfAny(CharSequence s) {
+        return find(s, 0, null);
+    }
+
+    /**
+     * @return the flattened {@code [start, end, needle index]} triples of every match
+     */
+    public int[] matchAll(CharSequence s) {
+        int[] triples = new int[48];
+        int size = 0;
+        int[] match = new int[2];
+        int from = 0;
+        while (find(s, from, match) >= 0) {
+            if (size + 3 > triples.length) {
+                triples = Arrays.copyOf(triples, triples.length * 2);
+            }
+            triples[size++] = match[0];
+            triples[size++] = match[0] + lengths[match[1]];
+            triples[size++] = needles[match[1]];
+            from = match[0] + lengths[match[1]];
+        }
+        return Arrays.copyOf(triples, size);
+    }
+
+    /**
+     * @param replacements the replacement of each needle, in the same order
+     * @return the string with every match replaced, or the same string if nothing matched
+     * @throws IllegalArgumentException if the count of replacements is not the count of needles
+     */
+    public String replaceEach(String s, List<String> replacements) {
+        if (replacements.size() != needleCount) {
+            throw new IllegalArgumentException("Expected " + needleCount + " replacements, got " + replacements.size());
+        }
+        int[] match = new int[2];
+        StringBuilder sb = null;
+        int from = 0;
+        while (find(s, from, match) >= 0) {
+            if (sb == null) {
+                sb = new StringBuilder(s.length());
+            }
+            sb.append(s, from, match[0]).append(replacements.get(needles[match[1]]));
+            from = match[0] + lengths[match[1]];
+        }
+        if (sb == null) {
+            return s;
+        }
+        return sb.append(s, from, s.length()).toString();
+    }
+
+    /**
+     * Finds the leftmost-longest match starting at or after the index.
+     *
+     * @param match receives the start and the state of the needle, if not null
+     * @return the start of the match, or -1 if there is none
+     */
+    private int find(CharSequence s, int from, int[] match) {
+        int bestStart = -1;
+        int bestState = 0;
+        int state = 0;
+        for (int i = from, len = s.length(); i < len; i++) {
+            // No needle starting after the best one can still be longer than it
+            if (bestStart >= 0 && i - bestStart >= maxLength) {
+                break;
+            }
+            state = next(state, s.charAt(i));
+            // Longer needles come first on the output chain, so the first one found has the smallest start
+            int output = needles[state] >= 0 ? state : outputLinks[state];
+            if (output >= 0) {
+                int start = i + 1 - lengths[output];
+                if (bestStart < 0 || start < bestStart) {
+                    bestStart = start;
+                    bestState = output;
+                } else if (start == bestStart) {
+                    bestState = output;
+                }
+            }
+        }
+        if (match != null && bestStart >= 0) {
+            match[0] = bestStart;
+            match[1] = bestState;
+        }
+        return bestStart;
+    }
+
+    private int next(int state, char c) {
+        if (transitions != null) {
+            int index = c < 128 ? asciiIndex[c] : Arrays.binarySearch(alphabet, c);
+            return index < 0 ? 0 : transitions[state * alphabet.length + index];
+        }
+        return next(edgeStarts, edgeChars, edgeTargets, fails, state, c);
+    }
+
+    /**
+     * Follows the fail links from the state until one has an edge for the char.
+     */
+    private static int next(int[] edgeStarts, char[] edgeChars, int[] edgeTargets, int[] fails, int state, char c) {
+        while (true) {
+            int next = edge(edgeStarts, edgeChars, edgeTargets, state, c);
+            if (next >= 0) {
+                return next;
+            }
+            if (state == 0) {
+                return 0;
+            }
+            state = fails[state];
+        }
+    }
+
+    /**
+     * @return the state the trie edge of the char leads to, or -1 if there is none
+     */
+    private static int edge(int[] edgeStarts, char[] edgeChars, int[] edgeTargets, int state, char c) {
+        int index = Arrays.binarySearch(edgeChars, edgeStarts[state], edgeStarts[state + 1], c);
+        return index < 0 ? -1 : edgeTargets[index];
+    }
+
+    /**
+     * The trie of the needles, with the edges of each state stored together and sorted by char.
+     */
+    private static final class Trie {
+        private final int[] edgeStarts;
+        private final char[] edgeChars;
+        private final int[] edgeTargets;
+        private final int[] fails;
+        private final int[] needles;
+        private final int[] lengths;
+
+        private Trie(List<String> needles, int totalLength) {
+            // Each edge as the state it leaves in the high bits and its char in the low 16 bits
+            var children = new HashMap<Long, Integer>();
+            int[] stateNeedles = new int[totalLength + 1];
+            int[] stateLengths = new int[totalLength + 1];
+            Arrays.fill(stateNeedles, -1);
+            int stateCount = 1;
+            for (int n = 0; n < needles.size(); n++) {
+                String needle = needles.get(n);
+                int state = 0;
+                for (int i = 0; i < needle.length(); i++) {
+                    long key = (long) state << 16 | needle.charAt(i);
+                    Integer next = children.get(key);
+                    if (next == null) {
+                        next = stateCount++;
+                        stateLengths[next] = i + 1;
+                        children.put(key, next);
+                    }
+                    state = next;
+                }
+                if (state != 0 && stateNeedles[state] < 0) {
+                    stateNeedles[state] = n;
+                }
+            }
+            long[] keys = new long[children.size()];
+            int k = 0;
+            for (long key : children.keySet()) {
+                keys[k++] = key;
+            }
+            Arrays.sort(keys);
+            edgeStarts = new int[stateCount + 1];
+            edgeChars = new char[keys.length];
+            edgeTargets = new int[keys.length];
+            for (int e = 0; e < keys.length; e++) {
+                edgeStarts[(int) (keys[e] >>> 16) + 1]++;
+                edgeChars[e] = (char) keys[e];
+                edgeTargets[e] = children.get(keys[e]);
+            }
+            for (int state = 0; state < stateCount; state++) {
+                edgeStarts[state + 1] += edgeStarts[state];
+            }
+            fails = new int[stateCount];
+            this.needles = Arrays.copyOf(stateNeedles, stateCount);
+            lengths = Arrays.copyOf(stateLengths, stateCount);
+        }
+
+        private int edge(int state, char c) {
+            return AhoCorasick.edge(edgeStarts, edgeChars, edgeTargets, state, c);
+        }
+
+        private int next(int state, char c) {
+            return AhoCorasick.next(edgeStarts, edgeChars, edgeTargets, fails, state, c);
+        }
+
+        /**
+         * @return the sorted distinct chars of the edges
+         */
+        private char[] alphabet() {
+            char[] chars = edgeChars.clone();
+            Arrays.sort(chars);
+            int size = 0;
+            for (int i = 0; i < chars.length; i++) {
+                if (i == 0 || chars[i] != chars[i - 1]) {
+                    chars[size++] = chars[i];
+                }
+            }
+            return Arrays.copyOf(chars, size);
+        }
+    }
+}
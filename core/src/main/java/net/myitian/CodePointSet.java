@@ -0,0 +1,84 @@
+package net.myitian;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of code points, used as the characters to trim.
+ * <p>
+ * BMP code points are kept in a bitmap sized to the highest one in the set, so an ASCII-only set takes two longs.
+ * Supplementary code points are kept in a sorted array and looked up by binary search.
+ */
+public final class CodePointSet {
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+
+    private static final long[] EMPTY_BITMAP = new long[0];
+    private static final int[] EMPTY_ARRAY = new int[0];
+    private static final LruCache<String, CodePointSet> CACHE = new LruCache<>(DEFAULT_CACHE_CAPACITY);
+
+    private final long[] bmp;
+    private final int[] supplementary;
+
+    private CodePointSet(long[] bmp, int[] supplementary) {
+        this.bmp = bmp;
+        this.supplementary = supplementary;
+    }
+
+    /**
+     * Returns the set of the code points of the given string, or the cached result of an earlier call.
+     */
+    public static CodePointSet of(String chars) {
+        CodePointSet set = CACHE.get(chars);
+        if (set == null) {
+            set = create(chars);
+            CACHE.put(chars, set);
+        }
+        return set;
+    }
+
+    public static CodePointSet create(CharSequence chars) {
+        int len = chars.length();
+        int maxBmp = -1;
+        int supplementaryCount = 0;
+        for (int i = 0; i < len; ) {
+            int codePoint = Character.codePointAt(chars, i);
+            if (Character.isBmpCodePoint(codePoint)) {
+                maxBmp = Math.max(maxBmp, codePoint);
+            } else {
+                supplementaryCount++;
+            }
+            i += Character.charCount(codePoint);
+        }
+        long[] bmp = maxBmp < 0 ? EMPTY_BITMAP : new long[(maxBmp >>> 6) + 1];
+        int[] supplementary = supplementaryCount == 0 ? EMPTY_ARRAY : new int[supplementaryCount];
+        int j = 0;
+        for (int i = 0; i < len; ) {
+            int codePoint = Character.codePointAt(chars, i);
+            if (Character.isBmpCodePoint(codePoint)) {
+                bmp[codePoint >>> 6] |= 1L << codePoint;
+            } else {
+                supplementary[j++] = codePoint;
+            }
+            i += Character.charCount(codePoint);
+        }
+        if (supplementary.length > 1) {
+            Arrays.sort(supplementary);
+        }
+        return new CodePointSet(bmp, supplementary);
+    }
+
+    public boolean contains(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            int index = codePoint >>> 6;
+            return index < bmp.length && (bmp[index] & (1L << codePoint)) != 0;
+        }
+        return supplementary.length != 0 && Arrays.binarySearch(supplementary, codePoint) >= 0;
+    }
+
+    public static int getCacheCapacity() {
+        return CACHE.getCapacity();
+    }
+
+    public static void setCacheCapacity(int capacity) {
+        CACHE.setCapacity(capacity);
+    }
+}
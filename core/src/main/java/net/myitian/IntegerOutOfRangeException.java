@@ -0,0 +1,56 @@
+package net.myitian;
+
+import java.io.Serial;
+
+/**
+ * Thrown by {@link StringExtension} when an integer argument is outside its allowed range(s).
+ */
+public class IntegerOutOfRangeException extends IllegalArgumentException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final Reason reason;
+    private final int value;
+    private final int[] bounds;
+
+    private IntegerOutOfRangeException(Reason reason, int value, int... bounds) {
+        super("Integer " + value + " is out of range");
+        this.reason = reason;
+        this.value = value;
+        this.bounds = bounds;
+    }
+
+    public static IntegerOutOfRangeException tooLow(int value, int min) {
+        return new IntegerOutOfRangeException(Reason.TOO_LOW, value, min);
+    }
+
+    public static IntegerOutOfRangeException tooHigh(int value, int max) {
+        return new IntegerOutOfRangeException(Reason.TOO_HIGH, value, max);
+    }
+
+    public static IntegerOutOfRangeException notInRanges(int value, int range0min, int range0max, int range1min, int range1max) {
+        return new IntegerOutOfRangeException(Reason.NOT_IN_RANGES, value, range0min, range0max, range1min, range1max);
+    }
+
+    public Reason getReason() {
+        return reason;
+    }
+
+    public int getValue() {
+        return value;
+    }
+
+    /**
+     * @return {@code [min]} for {@link Reason#TOO_LOW}, {@code [max]} for {@link Reason#TOO_HIGH},
+     * {@code [range0min, range0max, range1min, range1max]} for {@link Reason#NOT_IN_RANGES}
+     */
+    public int[] getBounds() {
+        return bounds.clone();
+    }
+
+    public enum Reason {
+        TOO_LOW,
+        TOO_HIGH,
+        NOT_IN_RANGES
+    }
+}
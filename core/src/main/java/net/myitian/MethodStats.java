@@ -0,0 +1,140 @@
+package net.myitian;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Invocation statistics of one method, kept in striped counters so that recording never contends.
+ * The instances are registered by name and live for the whole process, so they survive the command tree being
+ * rebuilt.
+ */
+public final class MethodStats {
+    private static final Map<String, MethodStats> REGISTRY = new ConcurrentHashMap<>();
+
+    private final String name;
+    private final LongAdder invocations = new LongAdder();
+    private final LongAdder exceptions = new LongAdder();
+    private final LongAdder totalNanos = new LongAdder();
+    private final LongAccumulator maxNanos = new LongAccumulator(Math::max, 0);
+    private final LongAdder inputChars = new LongAdder();
+    private final LongAdder outputChars = new LongAdder();
+
+    private MethodStats(String name) {
+        this.name = name;
+    }
+
+    public static MethodStats register(String name) {
+        return REGISTRY.computeIfAbsent(name, MethodStats::new);
+    }
+
+    /**
+     * @return the statistics of every method called since the last reset, the most time-consuming first
+     */
+    public static List<MethodStats> getCalled() {
+        List<MethodStats> called = new ArrayList<>();
+        for (MethodStats stats : REGISTRY.values()) {
+            if (stats.getInvocations() > 0) {
+                called.add(stats);
+            }
+        }
+        called.sort(Comparator.comparingLong(MethodStats::getTotalNanos).reversed()
+                .thenComparing(MethodStats::getName));
+        return called;
+    }
+
+    public static void resetAll() {
+        for (MethodStats stats : REGISTRY.values()) {
+            stats.reset();
+        }
+    }
+
+    public void record(long nanos, long inputChars, long outputChars, boolean failed) {
+        invocations.increment();
+        if (failed) {
+            exceptions.increment();
+        }
+        totalNanos.add(nanos);
+        maxNanos.accumulate(nanos);
+        this.inputChars.add(inputChars);
+        this.outputChars.add(outputChars);
+    }
+
+    /**
+     * Not atomic: counts recorded while resetting may be partly kept.
+     */
+    public void reset() {
+        invocations.reset();
+        exceptions.reset();
+        totalNanos.reset();
+        maxNanos.reset();
+        inputChars.reset();
+        outputChars.reset();
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public long getInvocations() {
+        return invocations.sum();
+    }
+
+    public long getExceptions() {
+        return exceptions.sum();
+    }
+
+    public long getTotalNanos() {
+        return totalNanos.sum();
+    }
+
+    public long getMaxNanos() {
+        return maxNanos.get();
+    }
+
+    public long getInputChars() {
+        return inputChars.sum();
+    }
+
+    public long getOutputChars() {
+        return outputChars.sum();
+    }
+
+    public static void writeCsv(Writer writer, List<MethodStats> statsList) throws IOException {
+        writer.write("method,invocations,exceptions,totalNanos,maxNanos,inputChars,outputChars\n");
+        for (MethodStats stats : statsList) {
+            writer.write(quoteCsv(stats.name) + ',' + stats.getInvocations() + ',' + stats.getExceptions() + ','
+                    + stats.getTotalNanos() + ',' + stats.getMaxNanos() + ','
+                    + stats.getInputChars() + ',' + stats.getOutputChars() + '\n');
+        }
+    }
+
+    public static void writeJson(Writer writer, List<MethodStats> statsList) throws IOException {
+        writer.write('[');
+        for (int i = 0; i < statsList.size(); i++) {
+            MethodStats stats = statsList.get(i);
+            writer.write(i == 0 ? "\n" : ",\n");
+            writer.write("  {\"method\": \"" + StringExtension.escape(stats.name) + '"'
+                    + ", \"invocations\": " + stats.getInvocations()
+                    + ", \"exceptions\": " + stats.getExceptions()
+                    + ", \"totalNanos\": " + stats.getTotalNanos()
+                    + ", \"maxNanos\": " + stats.getMaxNanos()
+                    + ", \"inputChars\": " + stats.getInputChars()
+                    + ", \"outputChars\": " + stats.getOutputChars() + '}');
+        }
+        writer.write(statsList.isEmpty() ? "]\n" : "\n]\n");
+    }
+
+    private static String quoteCsv(String s) {
+        if (s.indexOf(',') < 0 && s.indexOf('"') < 0 && s.indexOf('\n') < 0) {
+            return s;
+        }
+        return '"' + s.replace("\"", "\"\"") + '"';
+    }
+}
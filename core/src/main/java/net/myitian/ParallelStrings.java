@@ -0,0 +1,202 @@
+package net.myitian;
+
+import java.io.Serial;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * Fork-join versions of the list-shaped string operations, for lists too large to process on one thread within a
+ * tick. Below the threshold, or without spare cores, they fall back to the sequential ones in {@link StringExtension}.
+ * <p>
+ * The caller blocks until every task is done. Each task writes to its own range of a shared array, so the results
+ * keep their order without any merging step.
+ */
+public final class ParallelStrings {
+    public static final int DEFAULT_THRESHOLD = 8192;
+
+    private static final int MIN_CHUNK_SIZE = 1024;
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    private static volatile int threshold = DEFAULT_THRESHOLD;
+
+    private ParallelStrings() {
+    }
+
+    public static int getThreshold() {
+        return threshold;
+    }
+
+    /**
+     * @param threshold the minimum count of elements processed in parallel, 0 to never do so
+     */
+    public static void setThreshold(int threshold) {
+        StringExtension.checkNotBelowZero(threshold);
+        ParallelStrings.threshold = threshold;
+    }
+
+    public static boolean isParallel(int size) {
+        int t = threshold;
+        return t > 0 && size >= t && ForkJoinPool.getCommonPoolParallelism() > 1;
+    }
+
+    public static String concat(String[] strings) {
+        if (!isParallel(strings.length)) {
+            return StringExtension.concat(strings);
+        }
+        return joinParallel("", strings);
+    }
+
+    public static String join(String delimiter, String[] strings) {
+        if (!isParallel(strings.length)) {
+            return StringExtension.join(delimiter, strings);
+        }
+        return joinParallel(delimiter, strings);
+    }
+
+    private static String joinParallel(String delimiter, String[] strings) {
+        int size = strings.length;
+        int delimiterLength = delimiter.length();
+        int[] offsets = new int[size];
+        long len = 0;
+        for (int i = 0; i < size; i++) {
+            // Only read once the total has passed the check below
+            offsets[i] = (int) len;
+            len += strings[i].length();
+            if (i + 1 < size) {
+                len += delimiterLength;
+            }
+        }
+        char[] chars = new char[StringExtension.checkResultLength(len)];
+        forEachChunk(size, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                String string = strings[i];
+                int offset = offsets[i];
+                string.getChars(0, string.length(), chars, offset);
+                if (i + 1 < size) {
+                    delimiter.getChars(0, delimiterLength, chars, offset + string.length());
+                }
+            }
+        });
+        return new String(chars);
+    }
+
+    public static String fromCodePoints(int[] codePoints) {
+        int size = codePoints.length;
+        if (!isParallel(size)) {
+            return StringExtension.fromCodePoints(codePoints);
+        }
+        // First count the chars of each chunk, then each chunk writes from the sum of the counts before it
+        int chunkSize = chunkSize(size);
+        int[] offsets = new int[(size + chunkSize - 1) / chunkSize + 1];
+        forEachChunk(size, (chunk, from, to) -> {
+            int count = 0;
+            for (int i = from; i < to; i++) {
+                int codePoint = codePoints[i];
+                if (!Character.isValidCodePoint(codePoint)) {
+                    throw new IllegalArgumentException(Integer.toString(codePoint));
+                }
+                count += Character.charCount(codePoint);
+            }
+            offsets[chunk + 1] = count;
+        });
+        for (int i = 1; i < offsets.length; i++) {
+            offsets[i] = Math.addExact(offsets[i], offsets[i - 1]);
+        }
+        char[] chars = new char[offsets[offsets.length - 1]];
+        forEachChunk(size, (chunk, from, to) -> {
+            int offset = offsets[chunk];
+            for (int i = from; i < to; i++) {
+                offset += Character.toChars(codePoints[i], chars, offset);
+            }
+        });
+        return new String(chars);
+    }
+
+    /**
+     * Stores the result of the mapper for every element of the input at the same index of the output.
+     * If the mapper throws, the first exception thrown is rethrown to the caller.
+     */
+    public static <T, R, E extends Exception> void map(T[] input, R[] output, Mapper<? super T, ? extends R, E> mapper) throws E {
+        int size = input.length;
+        if (!isParallel(size)) {
+            for (int i = 0; i < size; i++) {
+                output[i] = mapper.apply(input[i]);
+            }
+            return;
+        }
+        forEachChunk(size, (chunk, from, to) -> {
+            for (int i = from; i < to; i++) {
+                output[i] = mapper.apply(input[i]);
+            }
+        });
+    }
+
+    private static int chunkSize(int size) {
+        int chunks = ForkJoinPool.getCommonPoolParallelism() * CHUNKS_PER_THREAD;
+        return Math.max(MIN_CHUNK_SIZE, (size + chunks - 1) / chunks);
+    }
+
+    private static <E extends Exception> void forEachChunk(int size, ChunkAction<E> action) throws E {
+        int chunkSize = chunkSize(size);
+        int chunks = (size + chunkSize - 1) / chunkSize;
+        var failure = new AtomicReference<Exception>();
+        ForkJoinPool.commonPool().invoke(new ChunkTask(action, size, chunkSize, 0, chunks, failure));
+        Exception e = failure.get();
+        if (e instanceof RuntimeException runtimeException) {
+            throw runtimeException;
+        } else if (e != null) {
+            @SuppressWarnings("unchecked")
+            E checked = (E) e;
+            throw checked;
+        }
+    }
+
+    @FunctionalInterface
+    public interface Mapper<T, R, E extends Exception> {
+        R apply(T t) throws E;
+    }
+
+    @FunctionalInterface
+    private interface ChunkAction<E extends Exception> {
+        void apply(int chunk, int from, int to) throws E;
+    }
+
+    private static final class ChunkTask extends RecursiveAction {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final ChunkAction<?> action;
+        private final int size;
+        private final int chunkSize;
+        private final int fromChunk;
+        private final int toChunk;
+        private final AtomicReference<Exception> failure;
+
+        private ChunkTask(ChunkAction<?> action, int size, int chunkSize, int fromChunk, int toChunk, AtomicReference<Exception> failure) {
+            this.action = action;
+            this.size = size;
+            this.chunkSize = chunkSize;
+            this.fromChunk = fromChunk;
+            this.toChunk = toChunk;
+            this.failure = failure;
+        }
+
+        @Override
+        protected void compute() {
+            if (toChunk - fromChunk > 1) {
+                int mid = (fromChunk + toChunk) >>> 1;
+                invokeAll(new ChunkTask(action, size, chunkSize, fromChunk, mid, failure),
+                        new ChunkTask(action, size, chunkSize, mid, toChunk, failure));
+            } else if (failure.get() == null) {
+                int from = fromChunk * chunkSize;
+                try {
+                    action.apply(fromChunk, from, Math.min(size, from + chunkSize));
+                } catch (Exception e) {
+                    // Remaining chunks are skipped, the caller rethrows the first failure
+                    failure.compareAndSet(null, e);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,151 @@
+package net.myitian;
+
+import java.io.Serial;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * A time budget for regex evaluation, so a pattern that backtracks catastrophically fails instead of hanging the
+ * thread running it.
+ * <p>
+ * {@code java.util.regex} cannot be interrupted, but it reads its input only through {@link CharSequence#charAt}.
+ * So the input is wrapped in a sequence that checks the deadline every {@value #CHECK_INTERVAL} reads.
+ * <p>
+ * The budget is off by default, since a timeout that is too tight fails valid commands on a busy server.
+ */
+public class RegexBudget {
+    public static final int DEFAULT_TIMEOUT_MILLIS = 0;
+
+    private static final int CHECK_INTERVAL = 1024;
+    private static final LongAdder VIOLATIONS = new LongAdder();
+
+    private static volatile long timeoutNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_TIMEOUT_MILLIS);
+
+    public static int getTimeoutMillis() {
+        return (int) TimeUnit.NANOSECONDS.toMillis(timeoutNanos);
+    }
+
+    /**
+     * @param millis the longest time a single regex method may run, 0 for no limit
+     */
+    public static void setTimeoutMillis(int millis) {
+        StringExtension.checkNotBelowZero(millis);
+        timeoutNanos = TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+
+    /**
+     * @return the count of regex methods stopped for running over budget
+     */
+    public static long getViolations() {
+        return VIOLATIONS.sum();
+    }
+
+    public static void resetViolations() {
+        VIOLATIONS.reset();
+    }
+
+    /**
+     * @return the input, wrapped to throw {@link TimeoutException} once the budget starting now is spent
+     */
+    public static CharSequence wrap(CharSequence s) {
+        long timeout = timeoutNanos;
+        if (timeout == 0) {
+            return s;
+        }
+        var budgeted = new Budgeted(s, timeout);
+        budgeted.resume();
+        return budgeted;
+    }
+
+    /**
+     * Like {@link #wrap}, but the budget is only spent between {@link Budgeted#resume()} and
+     * {@link Budgeted#pause()}, for callers that do other work between two matches.
+     */
+    public static Budgeted wrapPaused(CharSequence s) {
+        return new Budgeted(s, timeoutNanos);
+    }
+
+    public static Matcher matcher(Pattern pattern, CharSequence s) {
+        return pattern.matcher(wrap(s));
+    }
+
+    public static final class Budgeted implements CharSequence {
+        private final CharSequence s;
+        private final long timeout;
+        /**
+         * Time spent before the last {@link #resume()}
+         */
+        private long spent;
+        /**
+         * When the budget was last resumed, only valid while running
+         */
+        private long resumed;
+        private boolean running;
+        private int reads;
+
+        private Budgeted(CharSequence s, long timeout) {
+            this.s = s;
+            this.timeout = timeout;
+        }
+
+        public void resume() {
+            if (!running) {
+                running = true;
+                resumed = System.nanoTime();
+            }
+        }
+
+        public void pause() {
+            if (running) {
+                running = false;
+                spent += System.nanoTime() - resumed;
+            }
+        }
+
+        @Override
+        public char charAt(int index) {
+            if (++reads == CHECK_INTERVAL) {
+                reads = 0;
+                if (running && timeout != 0 && spent + System.nanoTime() - resumed > timeout) {
+                    VIOLATIONS.increment();
+                    throw new TimeoutException(TimeUnit.NANOSECONDS.toMillis(timeout));
+                }
+            }
+            return s.charAt(index);
+        }
+
+        @Override
+        public int length() {
+            return s.length();
+        }
+
+        @Override
+        public CharSequence subSequence(int start, int end) {
+            // Only used to copy out results, never to match
+            return s.subSequence(start, end);
+        }
+
+        @Override
+        public String toString() {
+            return s.toString();
+        }
+    }
+
+    public static class TimeoutException extends RuntimeException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final long timeoutMillis;
+
+        public TimeoutException(long timeoutMillis) {
+            super("Regex evaluation ran over its budget of " + timeoutMillis + " ms");
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+    }
+}
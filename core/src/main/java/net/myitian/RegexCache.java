@@ -0,0 +1,106 @@
+package net.myitian;
+
+import net.myitian.regex.LinearRegex;
+
+import java.util.Objects;
+import java.util.Optional;
+import java.util.regex.Pattern;
+
+/**
+ * A bounded LRU cache of compiled {@link Pattern}s, keyed by pattern string and flags, and of {@link LinearRegex}es
+ * keyed by pattern string. Both caches have the same capacity, but keep their own statistics.
+ */
+public class RegexCache {
+    public static final int DEFAULT_CAPACITY = 256;
+
+    private static final LruCache<Key, Pattern> CACHE = new LruCache<>(DEFAULT_CAPACITY);
+    private static final LruCache<String, Optional<LinearRegex>> LINEAR_CACHE = new LruCache<>(DEFAULT_CAPACITY);
+
+    public static Pattern get(String regex) {
+        return get(regex, 0);
+    }
+
+    public static Pattern get(String regex, int flags) {
+        Key key = new Key(regex, flags);
+        Pattern pattern = CACHE.get(key);
+        if (pattern == null) {
+            // A PatternSyntaxException must not leave a broken entry behind, so put only after compiling
+            pattern = Pattern.compile(regex, flags);
+            CACHE.put(key, pattern);
+        }
+        return pattern;
+    }
+
+    /**
+     * @return the linear-time version of the pattern, or null if it uses syntax that is not supported
+     * @throws java.util.regex.PatternSyntaxException if the pattern is not valid at all
+     */
+    public static LinearRegex getLinear(String regex) {
+        Optional<LinearRegex> linear = LINEAR_CACHE.get(regex);
+        if (linear == null) {
+            linear = Optional.ofNullable(LinearRegex.tryCompile(regex));
+            if (linear.isPresent()) {
+                // Let Pattern report syntax errors, so both engines fail the same way. The pattern itself is not
+                // needed, so it bypasses the cache and its counters
+                Pattern.compile(regex);
+            } else {
+                // The caller falls back to Pattern, which also reports syntax errors
+                get(regex);
+            }
+            LINEAR_CACHE.put(regex, linear);
+        }
+        return linear.orElse(null);
+    }
+
+    public static int getCapacity() {
+        return CACHE.getCapacity();
+    }
+
+    public static void setCapacity(int capacity) {
+        CACHE.setCapacity(capacity);
+        LINEAR_CACHE.setCapacity(capacity);
+    }
+
+    public static int size() {
+        return CACHE.size();
+    }
+
+    public static long getHits() {
+        return CACHE.getHits();
+    }
+
+    public static long getMisses() {
+        return CACHE.getMisses();
+    }
+
+    public static long getEvictions() {
+        return CACHE.getEvictions();
+    }
+
+    public static int getLinearSize() {
+        return LINEAR_CACHE.size();
+    }
+
+    public static long getLinearHits() {
+        return LINEAR_CACHE.getHits();
+    }
+
+    public static long getLinearMisses() {
+        return LINEAR_CACHE.getMisses();
+    }
+
+    public static long getLinearEvictions() {
+        return LINEAR_CACHE.getEvictions();
+    }
+
+    public static void clear() {
+        CACHE.clear();
+        LINEAR_CACHE.clear();
+    }
+
+    private record Key(String regex, int flags) {
+        private Key {
+            Objects.requireNonNull(regex);
+        }
+    }
+}
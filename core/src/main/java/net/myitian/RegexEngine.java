@@ -0,0 +1,28 @@
+package net.myitian;
+
+import java.util.Objects;
+
+/**
+ * Which implementation the regex methods of {@link StringExtension} use.
+ */
+public enum RegexEngine {
+    /**
+     * {@link java.util.regex.Pattern}, which backtracks and relies on {@link RegexBudget} to stop runaway patterns
+     */
+    JAVA,
+    /**
+     * {@link net.myitian.regex.LinearRegex}, which runs in linear time, falling back to {@link #JAVA} for syntax it
+     * does not support, such as backreferences and lookaround
+     */
+    LINEAR;
+
+    private static volatile RegexEngine defaultEngine = JAVA;
+
+    public static RegexEngine getDefault() {
+        return defaultEngine;
+    }
+
+    public static void setDefault(RegexEngine engine) {
+        defaultEngine = Objects.requireNonNull(engine);
+    }
+}
@@ -0,0 +1,211 @@
+package net.myitian;
+
+import java.io.Serial;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Named {@link StringBuilder}s kept outside NBT, so a long string can be built by many appends without copying
+ * the whole string on each of them.
+ * <p>
+ * The total length of all builders is capped. Builders not used for longer than the idle timeout are dropped
+ * the next time any builder is looked up.
+ */
+public class StringBuilderRegistry {
+    public static final int DEFAULT_MAX_CHARS = 16 * 1024 * 1024;
+    public static final int DEFAULT_IDLE_TIMEOUT_SECONDS = 300;
+
+    private static final long SWEEP_INTERVAL_NANOS = TimeUnit.SECONDS.toNanos(1);
+    private static final Map<String, Handle> BUILDERS = new HashMap<>();
+
+    private static int maxChars = DEFAULT_MAX_CHARS;
+    private static long idleTimeoutNanos = TimeUnit.SECONDS.toNanos(DEFAULT_IDLE_TIMEOUT_SECONDS);
+    private static long totalChars;
+    private static long lastSweep = System.nanoTime();
+
+    /**
+     * Creates an empty builder, replacing the one with the same id if any.
+     */
+    public static synchronized Handle create(String id) {
+        long now = System.nanoTime();
+        sweep(now);
+        var handle = new Handle(now);
+        Handle old = BUILDERS.put(id, handle);
+        if (old != null) {
+            totalChars -= old.builder.length();
+        }
+        return handle;
+    }
+
+    /**
+     * @return the builder with the given id, or null if it does not exist or has expired
+     */
+    public static synchronized Handle get(String id) {
+        long now = System.nanoTime();
+        sweep(now);
+        Handle handle = BUILDERS.get(id);
+        if (handle != null) {
+            handle.lastUsed = now;
+        }
+        return handle;
+    }
+
+    /**
+     * @return whether a builder with the given id existed
+     */
+    public static synchronized boolean free(String id) {
+        Handle handle = BUILDERS.remove(id);
+        if (handle == null) {
+            return false;
+        }
+        totalChars -= handle.builder.length();
+        return true;
+    }
+
+    public static synchronized int size() {
+        return BUILDERS.size();
+    }
+
+    public static synchronized long getTotalChars() {
+        return totalChars;
+    }
+
+    public static synchronized int getMaxChars() {
+        return maxChars;
+    }
+
+    public static synchronized void setMaxChars(int maxChars) {
+        StringExtension.checkNotBelowZero(maxChars);
+        StringBuilderRegistry.maxChars = maxChars;
+    }
+
+    /**
+     * @param seconds the idle time after which a builder is dropped, 0 to keep builders until freed
+     */
+    public static synchronized void setIdleTimeout(int seconds) {
+        StringExtension.checkNotBelowZero(seconds);
+        idleTimeoutNanos = TimeUnit.SECONDS.toNanos(seconds);
+    }
+
+    public static synchronized void clear() {
+        BUILDERS.clear();
+        totalChars = 0;
+    }
+
+    private static void sweep(long now) {
+        if (idleTimeoutNanos == 0 || now - lastSweep < SWEEP_INTERVAL_NANOS) {
+            return;
+        }
+        lastSweep = now;
+        var iterator = BUILDERS.values().iterator();
+        while (iterator.hasNext()) {
+            Handle handle = iterator.next();
+            if (now - handle.lastUsed > idleTimeoutNanos) {
+                totalChars -= handle.builder.length();
+                iterator.remove();
+            }
+        }
+    }
+
+    private static void reserve(int chars) {
+        if (totalChars + chars > maxChars) {
+            throw new CapacityExceededException(maxChars);
+        }
+        totalChars += chars;
+    }
+
+    /**
+     * A builder of the registry. Every method that changes its length keeps the total of the registry in sync.
+     */
+    public static final class Handle {
+        private final StringBuilder builder = new StringBuilder();
+        private long lastUsed;
+
+        private Handle(long now) {
+            lastUsed = now;
+        }
+
+        /**
+         * @return the new length
+         */
+        public int append(String s) {
+            synchronized (StringBuilderRegistry.class) {
+                reserve(s.length());
+                builder.append(s);
+                return builder.length();
+            }
+        }
+
+        /**
+         * @return the new length
+         */
+        public int insert(int offset, String s) {
+            synchronized (StringBuilderRegistry.class) {
+                int index = StringExtension.convertAndCheckIndexWider(offset, builder);
+                reserve(s.length());
+                builder.insert(index, s);
+                return builder.length();
+            }
+        }
+
+        /**
+         * Deletes the chars from the begin index to the end, with the same indexes as
+         * {@link StringExtension#substring(String, int)}.
+         *
+         * @return the new length
+         */
+        public int delete(int beginIndex) {
+            synchronized (StringBuilderRegistry.class) {
+                return delete(beginIndex, builder.length());
+            }
+        }
+
+        /**
+         * Deletes the chars between the indexes, with the same indexes as
+         * {@link StringExtension#substring(String, int, int)}.
+         *
+         * @return the new length
+         */
+        public int delete(int beginIndex, int endIndex) {
+            synchronized (StringBuilderRegistry.class) {
+                int length = builder.length();
+                int begin = StringExtension.convertAndCheckIndexWider(beginIndex, builder);
+                StringExtension.checkInt(endIndex, begin - length, -1, begin, length);
+                int end = StringExtension.convertIndex(endIndex, builder);
+                builder.delete(begin, end);
+                totalChars -= end - begin;
+                return builder.length();
+            }
+        }
+
+        public int length() {
+            synchronized (StringBuilderRegistry.class) {
+                return builder.length();
+            }
+        }
+
+        @Override
+        public String toString() {
+            synchronized (StringBuilderRegistry.class) {
+                return builder.toString();
+            }
+        }
+    }
+
+    public static class CapacityExceededException extends IllegalStateException {
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final int maxChars;
+
+        public CapacityExceededException(int maxChars) {
+            super("String builders cannot hold more than " + maxChars + " chars");
+            this.maxChars = maxChars;
+        }
+
+        public int getMaxChars() {
+            return maxChars;
+        }
+    }
+}
@@ -0,0 +1,761 @@
+package net.myitian;
+
+import net.myitian.regex.LinearRegex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.function.Consumer;
+import java.util.regex.MatchResult;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+public class StringExtension {
+    /**
+     * Longest string {@link #concat} and {@link StringTemplate#format} build, the same as the default total of
+     * {@link StringBuilderRegistry}. They know the length before building, so they fail instead of allocating.
+     */
+    public static final int MAX_RESULT_LENGTH = 16 * 1024 * 1024;
+
+    private static int codePointAt(char[] value, int index, int end) {
+        char c1 = value[index];
+        if (Character.isHighSurrogate(c1) && ++index < end) {
+            char c2 = value[index];
+            if (Character.isLowSurrogate(c2)) {
+                return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c1;
+    }
+
+    private static int codePointBefore(char[] value, int index) {
+        --index;
+        char c2 = value[index];
+        if (Character.isLowSurrogate(c2) && index > 0) {
+            --index;
+            char c1 = value[index];
+            if (Character.isHighSurrogate(c1)) {
+                return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c2;
+    }
+
+    private static int codePointAt(CharSequence value, int index, int end) {
+        char c1 = value.charAt(index);
+        if (Character.isHighSurrogate(c1) && ++index < end) {
+            char c2 = value.charAt(index);
+            if (Character.isLowSurrogate(c2)) {
+                return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c1;
+    }
+
+    private static int codePointBefore(CharSequence value, int index) {
+        --index;
+        char c2 = value.charAt(index);
+        if (Character.isLowSurrogate(c2) && index > 0) {
+            --index;
+            char c1 = value.charAt(index);
+            if (Character.isHighSurrogate(c1)) {
+                return Character.toCodePoint(c1, c2);
+            }
+        }
+        return c2;
+    }
+
+    public static int indexOfNonWhitespace(char[] value) {
+        int length = value.length;
+        int left = 0;
+        while (left < length) {
+            int codepoint = codePointAt(value, left, length);
+            if (codepoint != ' ' && codepoint != '\t' && !Character.isWhitespace(codepoint)) {
+                break;
+            }
+            left += Character.charCount(codepoint);
+        }
+        return left;
+    }
+
+    public static int lastIndexOfNonWhitespace(char[] value) {
+        int right = value.length;
+        while (0 < right) {
+            int codepoint = codePointBefore(value, right);
+            if (codepoint != ' ' && codepoint != '\t' && !Character.isWhitespace(codepoint)) {
+                break;
+            }
+            right -= Character.charCount(codepoint);
+        }
+        return right;
+    }
+
+    public static boolean isBlank(String s) {
+        return s.isBlank();
+    }
+
+    public static String repeat(String s, int count) {
+        checkNotBelowZero(count);
+        checkResultLength((long) s.length() * count);
+        return s.repeat(count);
+    }
+
+    public static String escape(String s) {
+        StringBuilder stringBuilder = new StringBuilder(s.length() + 17).append(' ');
+        for (int i = 0; i < s.length(); ++i) {
+            char d = s.charAt(i);
+            if (d == '\\' || d == '"') {
+                stringBuilder.append('\\');
+            }
+            stringBuilder.append(d);
+        }
+        return stringBuilder.toString();
+    }
+
+    public static String at(String s, int index) {
+        return Character.toString(charAt(s, index));
+    }
+
+    /**
+     * Same as {@link #at(String, int)}, without creating a string.
+     */
+    public static char charAt(String s, int index) {
+        return s.charAt(convertAndCheckIndex(index, s));
+    }
+
+    public static String substring(String s, int beginIndex) {
+        return s.substring(convertAndCheckIndexWider(beginIndex, s));
+    }
+
+    public static String substring(String s, int beginIndex, int endIndex) {
+        int begin = convertAndCheckIndexWider(beginIndex, s);
+        checkInt(endIndex, begin - s.length(), -1, begin, s.length());
+        return s.substring(begin, convertIndex(endIndex, s));
+    }
+
+    public static String substring2(String s, int beginIndex, int length) {
+        int begin = convertAndCheckIndexWider(beginIndex, s);
+        checkInt(length, 0, s.length() - begin);
+        return s.substring(begin, begin + length);
+    }
+
+    public static String[] split(String s, String regex, int limit) {
+        return split(s, regex, limit, RegexEngine.getDefault());
+    }
+
+    public static String[] split(String s, String regex, int limit, RegexEngine engine) {
+        checkNotBelowZero(limit);
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.split(RegexBudget.wrap(s), limit);
+        }
+        return RegexCache.get(regex).split(RegexBudget.wrap(s), limit);
+    }
+
+    public static int split(String s, String separator, int limit, boolean literal, boolean skipEmpty, Consumer<String> consumer) {
+        return split(s, separator, limit, literal, skipEmpty, RegexEngine.getDefault(), consumer);
+    }
+
+    /**
+     * Splits like {@link #split(String, String, int, RegexEngine)}, but hands each piece to the consumer as soon as
+     * it is found instead of collecting them into an array first.
+     *
+     * @param limit     the maximum count of pieces, the last one holding the rest of the string, or 0 for no limit,
+     *                  in which case trailing empty pieces are dropped
+     * @param literal   whether the separator is a plain string rather than a regex, so no pattern is involved
+     * @param skipEmpty whether to drop every empty piece; they do not count toward the limit either
+     * @return the count of pieces passed to the consumer
+     */
+    public static int split(
+            String s,
+            String separator,
+            int limit,
+            boolean literal,
+            boolean skipEmpty,
+            RegexEngine engine,
+            Consumer<String> consumer) {
+        checkNotBelowZero(limit);
+        SeparatorFinder finder;
+        if (literal) {
+            finder = literalFinder(s, separator);
+        } else {
+            LinearRegex linear = getLinear(separator, engine);
+            if (linear != null) {
+                // Only the spans are materialized, which is far smaller than the pieces
+                int[] spans = linear.findSpans(RegexBudget.wrap(s), false, false);
+                int[] next = {0};
+                finder = span -> {
+                    if (next[0] >= spans.length) {
+                        return false;
+                    }
+                    span[0] = spans[next[0]++];
+                    span[1] = spans[next[0]++];
+                    return true;
+                };
+            } else {
+                // The consumer runs between two finds, so only the finds are timed
+                RegexBudget.Budgeted input = RegexBudget.wrapPaused(s);
+                Matcher matcher = RegexCache.get(separator).matcher(input);
+                finder = span -> {
+                    input.resume();
+                    boolean found;
+                    try {
+                        found = matcher.find();
+                    } finally {
+                        input.pause();
+                    }
+                    if (!found) {
+                        return false;
+                    }
+                    span[0] = matcher.start();
+                    span[1] = matcher.end();
+                    return true;
+                };
+            }
+        }
+        return split(s, finder, limit, skipEmpty, consumer);
+    }
+
+    /**
+     * Same rules as {@link Pattern#split(CharSequence, int)}, except for {@code skipEmpty}.
+     */
+    private static int split(String s, SeparatorFinder finder, int limit, boolean skipEmpty, Consumer<String> consumer) {
+        int[] span = new int[2];
+        int index = 0;
+        int count = 0;
+        // Empty pieces held back until a non-empty one shows they are not trailing
+        int pendingEmpty = 0;
+        boolean found = false;
+        while (finder.find(span)) {
+            if (!found && span[0] == 0 && span[1] == 0) {
+                // No leading empty piece for an empty match at the start
+                continue;
+            }
+            boolean empty = span[0] == index;
+            if (empty && skipEmpty) {
+                found = true;
+                index = span[1];
+                continue;
+            }
+            if (limit > 0 && count + pendingEmpty >= limit - 1) {
+                break;
+            }
+            found = true;
+            if (empty) {
+                pendingEmpty++;
+            } else {
+                count += flushEmpty(pendingEmpty, consumer);
+                pendingEmpty = 0;
+                consumer.accept(s.substring(index, span[0]));
+                count++;
+            }
+            index = span[1];
+        }
+        if (!found) {
+            if (skipEmpty && s.isEmpty()) {
+                return 0;
+            }
+            consumer.accept(s);
+            return 1;
+        }
+        if (index < s.length()) {
+            count += flushEmpty(pendingEmpty, consumer);
+            consumer.accept(s.substring(index));
+            count++;
+        } else if (limit > 0 && !skipEmpty) {
+            count += flushEmpty(pendingEmpty + 1, consumer);
+        }
+        return count;
+    }
+
+    private static int flushEmpty(int count, Consumer<String> consumer) {
+        for (int i = 0; i < count; i++) {
+            consumer.accept("");
+        }
+        return count;
+    }
+
+    private static SeparatorFinder literalFinder(String s, String separator) {
+        int[] from = {0};
+        int length = s.length();
+        if (separator.isEmpty()) {
+            // Like the quoted empty pattern, matches between every two chars
+            return span -> {
+                if (from[0] > length) {
+                    return false;
+                }
+                span[0] = span[1] = from[0]++;
+                return true;
+            };
+        }
+        return span -> {
+            int start = s.indexOf(separator, from[0]);
+            if (start < 0) {
+                return false;
+            }
+            span[0] = start;
+            span[1] = from[0] = start + separator.length();
+            return true;
+        };
+    }
+
+    /**
+     * Walks the matches of a separator in order, each starting at or after the end of the previous one.
+     */
+    @FunctionalInterface
+    private interface SeparatorFinder {
+        boolean find(int[] span);
+    }
+
+    public static boolean matches(String s, String regex) {
+        return matches(s, regex, RegexEngine.getDefault());
+    }
+
+    public static boolean matches(String s, String regex, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.matches(RegexBudget.wrap(s));
+        }
+        return RegexBudget.matcher(RegexCache.get(regex), s).matches();
+    }
+
+    public static String replaceAll(String s, String regex, String replacement) {
+        return replaceAll(s, regex, replacement, RegexEngine.getDefault());
+    }
+
+    public static String replaceAll(String s, String regex, String replacement, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.replaceAll(RegexBudget.wrap(s), replacement);
+        }
+        return RegexBudget.matcher(RegexCache.get(regex), s).replaceAll(replacement);
+    }
+
+    /**
+     * Replaces the first occurrence of the target with the replacement, both taken literally.
+     */
+    public static String replaceFirstLiteral(String s, String target, String replacement) {
+        int index = s.indexOf(target);
+        if (index < 0) {
+            return s;
+        }
+        return new StringBuilder(s.length() - target.length() + replacement.length())
+                .append(s, 0, index)
+                .append(replacement)
+                .append(s, index + target.length(), s.length())
+                .toString();
+    }
+
+    public static String replaceFirst(String s, String regex, String replacement) {
+        return replaceFirst(s, regex, replacement, RegexEngine.getDefault());
+    }
+
+    public static String replaceFirst(String s, String regex, String replacement, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.replaceFirst(RegexBudget.wrap(s), replacement);
+        }
+        return RegexBudget.matcher(RegexCache.get(regex), s).replaceFirst(replacement);
+    }
+
+    public static ArrayList<MatchResult> matchesAll(String s, String regex) {
+        return matchesAll(s, regex, RegexEngine.getDefault());
+    }
+
+    public static ArrayList<MatchResult> matchesAll(String s, String regex, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.findAll(RegexBudget.wrap(s), false);
+        }
+        return matchesAll(RegexBudget.matcher(RegexCache.get(regex), s));
+    }
+
+    public static ArrayList<MatchResult> matchesAllFully(String s, String regex) {
+        return matchesAllFully(s, regex, RegexEngine.getDefault());
+    }
+
+    public static ArrayList<MatchResult> matchesAllFully(String s, String regex, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.findAll(RegexBudget.wrap(s), true);
+        }
+        return matchesAllFully(RegexBudget.matcher(RegexCache.get(regex), s));
+    }
+
+    /**
+     * @param groups whether to include the groups of each match, or only the whole match
+     * @return the flattened {@code [start, end]} pairs of every match, with -1 for groups that did not match
+     */
+    public static int[] matchesAllSpans(String s, String regex, boolean groups) {
+        return matchesAllSpans(s, regex, groups, RegexEngine.getDefault());
+    }
+
+    public static int[] matchesAllSpans(String s, String regex, boolean groups, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.findSpans(RegexBudget.wrap(s), false, groups);
+        }
+        return matchesAllSpans(RegexBudget.matcher(RegexCache.get(regex), s), false, groups);
+    }
+
+    /**
+     * @return the count of ints per match in the spans from {@link #matchesAllSpans(String, String, boolean)}
+     */
+    public static int spanStride(String regex, boolean groups) {
+        return spanStride(regex, groups, RegexEngine.getDefault());
+    }
+
+    /**
+     * Takes the group count from the engine the spans come from, so the linear one does not compile a
+     * {@link java.util.regex.Pattern} for it.
+     */
+    public static int spanStride(String regex, boolean groups, RegexEngine engine) {
+        if (!groups) {
+            return 2;
+        }
+        LinearRegex linear = getLinear(regex, engine);
+        int groupCount = linear != null ? linear.groupCount() : RegexCache.get(regex).matcher("").groupCount();
+        return (groupCount + 1) * 2;
+    }
+
+    /**
+     * Same as {@link #matchesAllSpans(String, String, boolean)}, but for {@link #matchesAllFully(String, String)}.
+     */
+    public static int[] matchesAllFullySpans(String s, String regex, boolean groups) {
+        return matchesAllFullySpans(s, regex, groups, RegexEngine.getDefault());
+    }
+
+    public static int[] matchesAllFullySpans(String s, String regex, boolean groups, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.findSpans(RegexBudget.wrap(s), true, groups);
+        }
+        return matchesAllSpans(RegexBudget.matcher(RegexCache.get(regex), s), true, groups);
+    }
+
+    /**
+     * @return the count of matches {@link #matchesAll(String, String)} would return
+     */
+    public static int countMatches(String s, String regex) {
+        return countMatches(s, regex, RegexEngine.getDefault());
+    }
+
+    public static int countMatches(String s, String regex, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.count(RegexBudget.wrap(s), false);
+        }
+        return countMatches(RegexBudget.matcher(RegexCache.get(regex), s), false);
+    }
+
+    /**
+     * @return the count of matches {@link #matchesAllFully(String, String)} would return
+     */
+    public static int countMatchesFully(String s, String regex) {
+        return countMatchesFully(s, regex, RegexEngine.getDefault());
+    }
+
+    public static int countMatchesFully(String s, String regex, RegexEngine engine) {
+        LinearRegex linear = getLinear(regex, engine);
+        if (linear != null) {
+            return linear.count(RegexBudget.wrap(s), true);
+        }
+        return countMatches(RegexBudget.matcher(RegexCache.get(regex), s), true);
+    }
+
+    /**
+     * @return the linear-time pattern to use, or null to use {@link java.util.regex.Pattern}
+     */
+    private static LinearRegex getLinear(String regex, RegexEngine engine) {
+        return engine == RegexEngine.LINEAR ? RegexCache.getLinear(regex) : null;
+    }
+
+    public static String[] toCharStrings(String s) {
+        String[] result = new String[s.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = Character.toString(s.charAt(i));
+        }
+        return result;
+    }
+
+    public static String[] toCodePointStrings(String s) {
+        return s.codePoints().mapToObj(Character::toString).toArray(String[]::new);
+    }
+
+    public static int[] toCodePoints(String s) {
+        return s.codePoints().toArray();
+    }
+
+    public static String fromCodePoints(int[] codePoints) {
+        return new String(codePoints, 0, codePoints.length);
+    }
+
+    public static String concat(String[] strings) {
+        long len = 0;
+        for (String string : strings) {
+            len += string.length();
+        }
+        var sb = new StringBuilder(checkResultLength(len));
+        for (String string : strings) {
+            sb.append(string);
+        }
+        return sb.toString();
+    }
+
+    public static String join(String delimiter, String[] strings) {
+        if (strings.length == 0) {
+            return "";
+        }
+        long len = (long) (strings.length - 1) * delimiter.length();
+        for (String string : strings) {
+            len += string.length();
+        }
+        var sb = new StringBuilder(checkResultLength(len));
+        sb.append(strings[0]);
+        for (int i = 1; i < strings.length; ) {
+            sb.append(delimiter).append(strings[i++]);
+        }
+        return sb.toString();
+    }
+
+    /**
+     * Joins every char of the string with the delimiter.
+     */
+    public static String joinChars(String delimiter, String s) {
+        if (s.isEmpty()) {
+            return "";
+        }
+        var sb = new StringBuilder(checkResultLength((long) (s.length() - 1) * delimiter.length() + s.length()));
+        sb.append(s.charAt(0));
+        for (int i = 1; i < s.length(); ) {
+            sb.append(delimiter).append(s.charAt(i++));
+        }
+        return sb.toString();
+    }
+
+    public static String strip(String s) {
+        return s.strip();
+    }
+
+    public static String stripLeading(String s) {
+        return s.stripLeading();
+    }
+
+    public static String stripTrailing(String s) {
+        return s.stripTrailing();
+    }
+
+    /**
+     * @param length the summed length of the parts of a string about to be built
+     * @return the length as an int
+     * @throws StringTooLongException if it is longer than {@link #MAX_RESULT_LENGTH}
+     */
+    public static int checkResultLength(long length) {
+        if (length > MAX_RESULT_LENGTH) {
+            throw new StringTooLongException(length, MAX_RESULT_LENGTH);
+        }
+        return (int) length;
+    }
+
+    public static void checkNotBelowZero(int i) {
+        if (i < 0) {
+            throw IntegerOutOfRangeException.tooLow(i, 0);
+        }
+    }
+
+    public static String trim(String s, CodePointSet trimChars) {
+        if (trimChars == null) {
+            return s.trim();
+        } else {
+            int begin = firstNotTrimmedPos(s, trimChars);
+            int end = lastNotTrimmedPos(s, trimChars) + 1;
+            if (begin >= end) {
+                return "";
+            } else {
+                return s.substring(begin, end);
+            }
+        }
+    }
+
+    public static String trimStart(String s, CodePointSet trimChars) {
+        return s.substring(firstNotTrimmedPos(s, trimChars));
+    }
+
+    public static String trimEnd(String s, CodePointSet trimChars) {
+        return s.substring(0, lastNotTrimmedPos(s, trimChars) + 1);
+    }
+
+    public static int firstNotTrimmedPos(String s, CodePointSet trimChars) {
+        int len = s.length();
+        int i = 0;
+        if (trimChars == null) {
+            while (i < len && s.charAt(i) <= ' ') {
+                i++;
+            }
+        } else {
+            while (i < len) {
+                int codePoint = codePointAt(s, i, len);
+                if (!trimChars.contains(codePoint)) {
+                    break;
+                }
+                i += Character.charCount(codePoint);
+            }
+        }
+        return i;
+    }
+
+    /**
+     * @return the index of the last char not trimmed, which is the low surrogate if it ends a surrogate pair
+     */
+    public static int lastNotTrimmedPos(String s, CodePointSet trimChars) {
+        int len = s.length();
+        int i = len - 1;
+        if (trimChars == null) {
+            while (i >= 0 && s.charAt(i) <= ' ') {
+                i--;
+            }
+        } else {
+            while (i >= 0) {
+                int codePoint = codePointBefore(s, i + 1);
+                if (!trimChars.contains(codePoint)) {
+                    break;
+                }
+                i -= Character.charCount(codePoint);
+            }
+        }
+        return i;
+    }
+
+    public static ArrayList<MatchResult> matchesAll(Matcher matcher) {
+        ArrayList<MatchResult> results = new ArrayList<>();
+        // find() moves past empty matches by itself, find(int) would find them again forever
+        while (matcher.find()) {
+            results.add(matcher.toMatchResult());
+        }
+        return results;
+    }
+
+    public static ArrayList<MatchResult> matchesAllFully(Matcher matcher) {
+        int start = 0;
+        int length = matcher.regionEnd();
+        ArrayList<MatchResult> results = new ArrayList<>();
+        while (start <= length && matcher.find(start)) {
+            results.add(matcher.toMatchResult());
+            start = matcher.start() + 1;
+        }
+        return results;
+    }
+
+    /**
+     * Reads the spans straight from the matcher, without a {@link MatchResult} per match.
+     */
+    private static int[] matchesAllSpans(Matcher matcher, boolean overlapping, boolean groups) {
+        int groupCount = groups ? matcher.groupCount() : 0;
+        int stride = (groupCount + 1) * 2;
+        int[] spans = new int[stride * 16];
+        int size = 0;
+        int start = 0;
+        int length = matcher.regionEnd();
+        while (overlapping ? start <= length && matcher.find(start) : matcher.find()) {
+            if (size + stride > spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            for (int group = 0; group <= groupCount; group++) {
+                spans[size++] = matcher.start(group);
+                spans[size++] = matcher.end(group);
+            }
+            start = matcher.start() + 1;
+        }
+        return Arrays.copyOf(spans, size);
+    }
+
+    private static int countMatches(Matcher matcher, boolean overlapping) {
+        int count = 0;
+        int start = 0;
+        int length = matcher.regionEnd();
+        while (overlapping ? start <= length && matcher.find(start) : matcher.find()) {
+            count++;
+            start = matcher.start() + 1;
+        }
+        return count;
+    }
+
+    /**
+     * @return the count of non-overlapping occurrences of the substring, or {@code s.length() + 1} if it is empty,
+     * like the count of empty matches of a regex
+     */
+    public static int countOccurrences(String s, String substring) {
+        int step = Math.max(substring.length(), 1);
+        int count = 0;
+        for (int i = s.indexOf(substring); i >= 0; i = s.indexOf(substring, i + step)) {
+            count++;
+            if (i == s.length()) {
+                break;
+            }
+        }
+        return count;
+    }
+
+    public static String escapeRegex(CharSequence s) {
+        int length = s.length();
+        StringBuilder sb = null;
+        int tail = 0;
+        for (int i = 0; i < length; i++) {
+            if (isSpecialRegexChar(s.charAt(i))) {
+                if (sb == null) {
+                    sb = new StringBuilder(length + 16);
+                }
+                sb.append(s, tail, i).append('\\');
+                tail = i;
+            }
+        }
+        if (sb == null) {
+            return s.toString();
+        }
+        return sb.append(s, tail, length).toString();
+    }
+
+    private static boolean isSpecialRegexChar(char c) {
+        return switch (c) {
+            case '{', '}', '(', ')', '[', ']', '.', '+', '*', '?', '^', '$', '\\', '|' -> true;
+            default -> false;
+        };
+    }
+
+    public static int convertIndex(int index, CharSequence s) {
+        return index >= 0 ? index : s.length() + index;
+    }
+
+    public static int convertAndCheckIndexWider(int index, CharSequence s) {
+        checkInt(index, -s.length(), s.length());
+        return convertIndex(index, s);
+    }
+
+    public static int convertAndCheckIndex(int index, CharSequence s) {
+        checkInt(index, -s.length(), s.length() - 1);
+        return convertIndex(index, s);
+    }
+
+    public static void checkIndex(int index, CharSequence s) {
+        checkInt(index, 0, s.length());
+    }
+
+    public static void checkInt(int value, int min, int max) {
+        if (value < min) {
+            throw IntegerOutOfRangeException.tooLow(value, min);
+        } else if (value > max) {
+            throw IntegerOutOfRangeException.tooHigh(value, max);
+        }
+    }
+
+    public static void checkInt(int value, int range0min, int range0max, int range1min, int range1max) {
+        int min = Math.min(range0min, range1min);
+        int max = Math.max(range0max, range1max);
+        if (value < min) {
+            throw IntegerOutOfRangeException.tooLow(value, min);
+        } else if (value > max) {
+            throw IntegerOutOfRangeException.tooHigh(value, max);
+        } else if ((value > range0max && value < range1min) || (value > range1max && value < range0min)) {
+            throw IntegerOutOfRangeException.notInRanges(value, range0min, range0max, range1min, range1max);
+        }
+    }
+}
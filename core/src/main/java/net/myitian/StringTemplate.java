@@ -0,0 +1,164 @@
+package net.myitian;
+
+import java.util.ArrayList;
+
+/**
+ * A parsed template such as {@code "{0} has {1} coins ({2}%)"}, made of literal segments and placeholders.
+ * <p>
+ * A placeholder is the text between a pair of braces: an argument index if it only has ASCII digits, otherwise an
+ * argument name. Doubled braces stand for literal ones.
+ */
+public final class StringTemplate {
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+
+    private static final LruCache<String, StringTemplate> CACHE = new LruCache<>(DEFAULT_CACHE_CAPACITY);
+
+    /**
+     * The literal before each placeholder, then the one after the last placeholder
+     */
+    private final String[] literals;
+    /**
+     * The text of each placeholder
+     */
+    private final String[] names;
+    /**
+     * The index of each placeholder, or -1 for named ones
+     */
+    private final int[] indexes;
+    private final int literalLength;
+
+    private StringTemplate(String[] literals, String[] names, int[] indexes) {
+        this.literals = literals;
+        this.names = names;
+        this.indexes = indexes;
+        int length = 0;
+        for (String literal : literals) {
+            length += literal.length();
+        }
+        literalLength = length;
+    }
+
+    /**
+     * Returns the parsed template, or the cached result of an earlier call with the same template.
+     *
+     * @throws IllegalArgumentException if a brace is not closed or not escaped
+     */
+    public static StringTemplate of(String template) {
+        StringTemplate parsed = CACHE.get(template);
+        if (parsed == null) {
+            parsed = parse(template);
+            CACHE.put(template, parsed);
+        }
+        return parsed;
+    }
+
+    /**
+     * @throws IllegalArgumentException if a brace is not closed or not escaped
+     */
+    public static StringTemplate parse(String template) {
+        var literals = new ArrayList<String>();
+        var names = new ArrayList<String>();
+        var literal = new StringBuilder();
+        int length = template.length();
+        int i = 0;
+        while (i < length) {
+            char c = template.charAt(i);
+            if (c == '{') {
+                if (i + 1 < length && template.charAt(i + 1) == '{') {
+                    literal.append('{');
+                    i += 2;
+                    continue;
+                }
+                int end = template.indexOf('}', i + 1);
+                if (end < 0) {
+                    throw new IllegalArgumentException("Unclosed placeholder at index " + i);
+                }
+                literals.add(literal.toString());
+                literal.setLength(0);
+                names.add(template.substring(i + 1, end));
+                i = end + 1;
+            } else if (c == '}') {
+                if (i + 1 < length && template.charAt(i + 1) == '}') {
+                    literal.append('}');
+                    i += 2;
+                    continue;
+                }
+                throw new IllegalArgumentException("Unescaped '}' at index " + i);
+            } else {
+                literal.append(c);
+                i++;
+            }
+        }
+        literals.add(literal.toString());
+        int[] indexes = new int[names.size()];
+        for (int p = 0; p < indexes.length; p++) {
+            indexes[p] = parseIndex(names.get(p));
+        }
+        return new StringTemplate(literals.toArray(new String[0]), names.toArray(new String[0]), indexes);
+    }
+
+    public static int getCacheCapacity() {
+        return CACHE.getCapacity();
+    }
+
+    public static void setCacheCapacity(int capacity) {
+        CACHE.setCapacity(capacity);
+    }
+
+    public static void clearCache() {
+        CACHE.clear();
+    }
+
+    public int placeholderCount() {
+        return names.length;
+    }
+
+    /**
+     * Looks up every argument once, then renders the template into a builder of the exact length.
+     */
+    public <E extends Exception> String format(ArgumentLookup<E> arguments) throws E {
+        int count = names.length;
+        if (count == 0) {
+            return literals[0];
+        }
+        var values = new String[count];
+        long length = literalLength;
+        for (int p = 0; p < count; p++) {
+            values[p] = arguments.get(indexes[p], names[p]);
+            length += values[p].length();
+        }
+        var sb = new StringBuilder(StringExtension.checkResultLength(length));
+        for (int p = 0; p < count; p++) {
+            sb.append(literals[p]).append(values[p]);
+        }
+        return sb.append(literals[count]).toString();
+    }
+
+    /**
+     * @return the index, or -1 if the name is empty or not all ASCII digits, or too large
+     */
+    private static int parseIndex(String name) {
+        if (name.isEmpty() || name.length() > 9) {
+            return -1;
+        }
+        int index = 0;
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            if (c < '0' || c > '9') {
+                return -1;
+            }
+            index = index * 10 + (c - '0');
+        }
+        return index;
+    }
+
+    @FunctionalInterface
+    public interface ArgumentLookup<E extends Exception> {
+        /**
+         * @param index the index of the placeholder, or -1 if it is a name
+         * @param name  the text of the placeholder, also for indexes
+         * @return the argument, never null
+         */
+        String get(int index, String name) throws E;
+    }
+}
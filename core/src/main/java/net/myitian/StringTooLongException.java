@@ -0,0 +1,30 @@
+package net.myitian;
+
+import java.io.Serial;
+
+/**
+ * Thrown by {@link StringExtension} and {@link StringTemplate} when the string they would build is longer than
+ * {@link StringExtension#MAX_RESULT_LENGTH}, before allocating anything for it, and by {@link AhoCorasick} when its
+ * needles are too long together.
+ */
+public class StringTooLongException extends IllegalArgumentException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long length;
+    private final int maxLength;
+
+    public StringTooLongException(long length, int maxLength) {
+        super("String of " + length + " chars is longer than " + maxLength);
+        this.length = length;
+        this.maxLength = maxLength;
+    }
+
+    public long getLength() {
+        return length;
+    }
+
+    public int getMaxLength() {
+        return maxLength;
+    }
+}
@@ -0,0 +1,110 @@
+package net.myitian.regex;
+
+import java.util.Arrays;
+
+/**
+ * An immutable set of code points stored as sorted, disjoint and non-adjacent inclusive ranges.
+ */
+final class CharRanges {
+    static final CharRanges EMPTY = new CharRanges(new int[0]);
+    static final CharRanges DIGIT = of('0', '9');
+    static final CharRanges WORD = of('0', '9', 'A', 'Z', '_', '_', 'a', 'z');
+    static final CharRanges SPACE = of('\t', '\r', ' ', ' ');
+    /**
+     * Everything but the line terminators, like {@code .} without any flag
+     */
+    static final CharRanges DOT = of('\n', '\n', '\r', '\r', 0x85, 0x85, 0x2028, 0x2029).complement();
+
+    /**
+     * {@code [lo0, hi0, lo1, hi1, ...]}
+     */
+    private final int[] ranges;
+    private final long asciiLow;
+    private final long asciiHigh;
+
+    private CharRanges(int[] ranges) {
+        this.ranges = ranges;
+        long low = 0;
+        long high = 0;
+        for (int i = 0; i < ranges.length && ranges[i] < 128; i += 2) {
+            for (int c = ranges[i], end = Math.min(ranges[i + 1], 127); c <= end; c++) {
+                if (c < 64) {
+                    low |= 1L << c;
+                } else {
+                    high |= 1L << c;
+                }
+            }
+        }
+        asciiLow = low;
+        asciiHigh = high;
+    }
+
+    /**
+     * @param bounds pairs of inclusive bounds, in any order and possibly overlapping
+     */
+    static CharRanges of(int... bounds) {
+        int count = bounds.length / 2;
+        long[] pairs = new long[count];
+        for (int i = 0; i < count; i++) {
+            pairs[i] = ((long) bounds[2 * i] << 32) | bounds[2 * i + 1];
+        }
+        Arrays.sort(pairs);
+        int[] merged = new int[count * 2];
+        int size = 0;
+        for (long pair : pairs) {
+            int lo = (int) (pair >>> 32);
+            int hi = (int) pair;
+            if (size > 0 && lo <= merged[size - 1] + 1) {
+                merged[size - 1] = Math.max(merged[size - 1], hi);
+            } else {
+                merged[size++] = lo;
+                merged[size++] = hi;
+            }
+        }
+        return new CharRanges(Arrays.copyOf(merged, size));
+    }
+
+    CharRanges union(CharRanges other) {
+        int[] bounds = Arrays.copyOf(ranges, ranges.length + other.ranges.length);
+        System.arraycopy(other.ranges, 0, bounds, ranges.length, other.ranges.length);
+        return of(bounds);
+    }
+
+    CharRanges complement() {
+        int[] result = new int[ranges.length + 2];
+        int size = 0;
+        int next = 0;
+        for (int i = 0; i < ranges.length; i += 2) {
+            if (ranges[i] > next) {
+                result[size++] = next;
+                result[size++] = ranges[i] - 1;
+            }
+            next = ranges[i + 1] + 1;
+        }
+        if (next <= Character.MAX_CODE_POINT) {
+            result[size++] = next;
+            result[size++] = Character.MAX_CODE_POINT;
+        }
+        return new CharRanges(Arrays.copyOf(result, size));
+    }
+
+    boolean contains(int codePoint) {
+        if (codePoint < 64) {
+            return (asciiLow & (1L << codePoint)) != 0;
+        } else if (codePoint < 128) {
+            return (asciiHigh & (1L << codePoint)) != 0;
+        }
+        // Find the last range starting at or before the code point
+        int lo = 0;
+        int hi = ranges.length / 2 - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            if (ranges[2 * mid] <= codePoint) {
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return hi >= 0 && codePoint <= ranges[2 * hi + 1];
+    }
+}
@@ -0,0 +1,163 @@
+package net.myitian.regex;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * A DFA for full matches, built lazily from the sets of NFA threads seen while matching. Each transition is computed
+ * once and then cached, so matching costs one lookup per code point once warm. The cache is dropped when it grows too
+ * large, which keeps memory bounded without losing the linear time bound.
+ * <p>
+ * Only programs without assertions are supported, since assertions depend on the position rather than the input.
+ */
+final class LazyDfa {
+    private static final int MAX_STATES = 4096;
+    private static final int MAX_TRANSITIONS = 1 << 16;
+
+    private final Program program;
+    private final Map<Key, State> states = new HashMap<>();
+    private final int[] stack;
+    private final boolean[] visited;
+    private State start;
+    private int transitions;
+
+    LazyDfa(Program program) {
+        if (program.hasAssertions) {
+            throw new IllegalArgumentException("Assertions are not supported by the DFA");
+        }
+        this.program = program;
+        stack = new int[program.size + 1];
+        visited = new boolean[program.size];
+    }
+
+    synchronized boolean matches(CharSequence s) {
+        if (start == null) {
+            start = intern(closure(new int[]{0}, 1));
+        }
+        State state = start;
+        int length = s.length();
+        for (int i = 0; i < length; ) {
+            int codePoint = Character.codePointAt(s, i);
+            i += Character.charCount(codePoint);
+            state = next(state, codePoint);
+            if (state.pcs.length == 0) {
+                return false;
+            }
+        }
+        return state.accepting;
+    }
+
+    private State next(State state, int codePoint) {
+        State next = state.get(codePoint);
+        if (next != null) {
+            return next;
+        }
+        if (states.size() >= MAX_STATES || transitions >= MAX_TRANSITIONS) {
+            states.clear();
+            transitions = 0;
+            start = null;
+            state = intern(state.pcs);
+        }
+        int[] targets = new int[state.pcs.length];
+        int count = 0;
+        for (int pc : state.pcs) {
+            if (program.ops[pc] == Program.CLASS && program.classes[program.args1[pc]].contains(codePoint)) {
+                targets[count++] = pc + 1;
+            }
+        }
+        next = intern(closure(targets, count));
+        state.put(codePoint, next);
+        transitions++;
+        return next;
+    }
+
+    /**
+     * @return the sorted {@link Program#CLASS} and {@link Program#MATCH} instructions reachable from the given ones
+     */
+    private int[] closure(int[] pcs, int count) {
+        Arrays.fill(visited, false);
+        int[] result = new int[program.size];
+        int size = 0;
+        int sp = 0;
+        for (int i = count - 1; i >= 0; i--) {
+            stack[sp++] = pcs[i];
+        }
+        while (sp > 0) {
+            int pc = stack[--sp];
+            while (!visited[pc]) {
+                visited[pc] = true;
+                int op = program.ops[pc];
+                if (op == Program.JMP) {
+                    pc = program.args1[pc];
+                } else if (op == Program.SPLIT) {
+                    stack[sp++] = program.args2[pc];
+                    pc = program.args1[pc];
+                } else if (op == Program.SAVE) {
+                    pc++;
+                } else {
+                    result[size++] = pc;
+                    break;
+                }
+            }
+        }
+        result = Arrays.copyOf(result, size);
+        Arrays.sort(result);
+        return result;
+    }
+
+    private State intern(int[] pcs) {
+        return states.computeIfAbsent(new Key(pcs), key -> new State(pcs, isAccepting(pcs)));
+    }
+
+    private boolean isAccepting(int[] pcs) {
+        for (int pc : pcs) {
+            if (program.ops[pc] == Program.MATCH) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static final class State {
+        private final int[] pcs;
+        private final boolean accepting;
+        private final State[] ascii = new State[128];
+        private Map<Integer, State> others;
+
+        private State(int[] pcs, boolean accepting) {
+            this.pcs = pcs;
+            this.accepting = accepting;
+        }
+
+        private State get(int codePoint) {
+            if (codePoint < 128) {
+                return ascii[codePoint];
+            }
+            return others == null ? null : others.get(codePoint);
+        }
+
+        private void put(int codePoint, State state) {
+            if (codePoint < 128) {
+                ascii[codePoint] = state;
+            } else {
+                if (others == null) {
+                    others = new HashMap<>();
+                }
+                others.put(codePoint, state);
+            }
+        }
+    }
+
+    private record Key(int[] pcs) {
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof Key key && Arrays.equals(pcs, key.pcs);
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(pcs);
+        }
+    }
+}
@@ -0,0 +1,328 @@
+package net.myitian.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.regex.MatchResult;
+
+/**
+ * A regex matched in time linear to the input, for patterns that cannot be trusted not to backtrack
+ * catastrophically. It supports the subset of {@link java.util.regex.Pattern} syntax described in
+ * {@link RegexParser}, with the same results as {@code Pattern} without flags.
+ * <p>
+ * Full matches run on a {@link LazyDfa} when the pattern has no anchors, everything else runs on a {@link PikeVm}.
+ * Unlike {@code Pattern}, a match never starts between the chars of a surrogate pair, and a group is never left
+ * holding a capture from a loop iteration that was backtracked out of.
+ */
+public final class LinearRegex {
+    private final String pattern;
+    private final Program program;
+    private final int groupCount;
+    private final Map<String, Integer> groupNames;
+    private final LazyDfa dfa;
+
+    private LinearRegex(String pattern, Program program, int groupCount, Map<String, Integer> groupNames) {
+        this.pattern = pattern;
+        this.program = program;
+        this.groupCount = groupCount;
+        this.groupNames = groupNames;
+        dfa = program.hasAssertions ? null : new LazyDfa(program);
+    }
+
+    /**
+     * @param regex a pattern already known to be valid for {@link java.util.regex.Pattern}
+     * @return the compiled pattern, or null if it uses syntax that is not supported
+     */
+    public static LinearRegex tryCompile(String regex) {
+        try {
+            var result = RegexParser.parse(regex);
+            var program = Program.compile(result.node(), result.groupCount());
+            return new LinearRegex(regex, program, result.groupCount(), Map.copyOf(result.groupNames()));
+        } catch (UnsupportedRegexException e) {
+            return null;
+        }
+    }
+
+    public String pattern() {
+        return pattern;
+    }
+
+    public int groupCount() {
+        return groupCount;
+    }
+
+    public boolean matches(CharSequence s) {
+        if (dfa != null) {
+            return dfa.matches(s);
+        }
+        return new PikeVm(program, s).search(0, true) != null;
+    }
+
+    /**
+     * @return the first match starting at or after the index, or null if there is none
+     */
+    public MatchResult find(CharSequence s, int from) {
+        if (from < 0 || from > s.length()) {
+            throw new IndexOutOfBoundsException("Illegal start index");
+        }
+        int[] slots = new PikeVm(program, s).search(from, false);
+        return slots == null ? null : new Match(s.toString(), slots, groupCount);
+    }
+
+    /**
+     * @param overlapping whether to search for the next match right after the start of the previous one,
+     *                    rather than after its end
+     * @return every match from the start
+     */
+    public ArrayList<MatchResult> findAll(CharSequence s, boolean overlapping) {
+        var vm = new PikeVm(program, s);
+        String text = s.toString();
+        var results = new ArrayList<MatchResult>();
+        int from = 0;
+        int length = s.length();
+        while (from <= length) {
+            int[] slots = vm.search(from, false);
+            if (slots == null) {
+                break;
+            }
+            results.add(new Match(text, slots, groupCount));
+            // Like Matcher.find(), do not find the same empty match again
+            from = overlapping || slots[1] == slots[0] ? slots[0] + 1 : slots[1];
+        }
+        return results;
+    }
+
+    /**
+     * @param groups whether to include the groups of each match, or only the whole match
+     * @return the flattened {@code [start, end]} pairs of every match, as in {@link #findAll(CharSequence, boolean)},
+     * with -1 for groups that did not match
+     */
+    public int[] findSpans(CharSequence s, boolean overlapping, boolean groups) {
+        var vm = new PikeVm(program, s);
+        int stride = groups ? program.slotCount : 2;
+        int[] spans = new int[stride * 16];
+        int size = 0;
+        int from = 0;
+        int length = s.length();
+        while (from <= length) {
+            int[] slots = vm.search(from, false);
+            if (slots == null) {
+                break;
+            }
+            if (size + stride > spans.length) {
+                spans = Arrays.copyOf(spans, spans.length * 2);
+            }
+            System.arraycopy(slots, 0, spans, size, stride);
+            size += stride;
+            from = overlapping || slots[1] == slots[0] ? slots[0] + 1 : slots[1];
+        }
+        return Arrays.copyOf(spans, size);
+    }
+
+    /**
+     * @return the count of matches {@link #findAll(CharSequence, boolean)} would return
+     */
+    public int count(CharSequence s, boolean overlapping) {
+        var vm = new PikeVm(program, s);
+        int count = 0;
+        int from = 0;
+        int length = s.length();
+        while (from <= length) {
+            int[] slots = vm.search(from, false);
+            if (slots == null) {
+                break;
+            }
+            count++;
+            from = overlapping || slots[1] == slots[0] ? slots[0] + 1 : slots[1];
+        }
+        return count;
+    }
+
+    public String replaceAll(CharSequence s, String replacement) {
+        return replace(s, replacement, Integer.MAX_VALUE);
+    }
+
+    public String replaceFirst(CharSequence s, String replacement) {
+        return replace(s, replacement, 1);
+    }
+
+    private String replace(CharSequence s, String replacement, int limit) {
+        var vm = new PikeVm(program, s);
+        int length = s.length();
+        StringBuilder sb = null;
+        int from = 0;
+        int tail = 0;
+        for (int count = 0; count < limit && from <= length; count++) {
+            int[] slots = vm.search(from, false);
+            if (slots == null) {
+                break;
+            }
+            if (sb == null) {
+                sb = new StringBuilder(length);
+            }
+            sb.append(s, tail, slots[0]);
+            appendReplacement(sb, s, slots, replacement);
+            tail = slots[1];
+            from = slots[1] == slots[0] ? slots[1] + 1 : slots[1];
+        }
+        if (sb == null) {
+            return s.toString();
+        }
+        return sb.append(s, tail, length).toString();
+    }
+
+    /**
+     * Same as {@link java.util.regex.Pattern#split(CharSequence, int)}.
+     */
+    public String[] split(CharSequence s, int limit) {
+        var vm = new PikeVm(program, s);
+        int length = s.length();
+        boolean limited = limit > 0;
+        var pieces = new ArrayList<String>();
+        int index = 0;
+        int from = 0;
+        while (from <= length) {
+            int[] slots = vm.search(from, false);
+            if (slots == null) {
+                break;
+            }
+            from = slots[1] == slots[0] ? slots[1] + 1 : slots[1];
+            if (!limited || pieces.size() < limit - 1) {
+                if (index == 0 && slots[0] == 0 && slots[1] == 0) {
+                    // No leading empty string for an empty match at the start
+                    continue;
+                }
+                pieces.add(s.subSequence(index, slots[0]).toString());
+                index = slots[1];
+            } else {
+                break;
+            }
+        }
+        if (index == 0) {
+            return new String[]{s.toString()};
+        }
+        pieces.add(s.subSequence(index, length).toString());
+        int size = pieces.size();
+        if (limit == 0) {
+            while (size > 0 && pieces.get(size - 1).isEmpty()) {
+                size--;
+            }
+        }
+        return pieces.subList(0, size).toArray(new String[0]);
+    }
+
+    /**
+     * Same as the replacement syntax of {@link java.util.regex.Matcher#appendReplacement}.
+     */
+    private void appendReplacement(StringBuilder sb, CharSequence s, int[] slots, String replacement) {
+        int cursor = 0;
+        int length = replacement.length();
+        while (cursor < length) {
+            char c = replacement.charAt(cursor++);
+            if (c == '\\') {
+                if (cursor == length) {
+                    throw new IllegalArgumentException("character to be escaped is missing");
+                }
+                sb.append(replacement.charAt(cursor++));
+            } else if (c == '$') {
+                if (cursor == length) {
+                    throw new IllegalArgumentException("Illegal group reference: group index is missing");
+                }
+                int group;
+                if (replacement.charAt(cursor) == '{') {
+                    int start = ++cursor;
+                    while (cursor < length && isAsciiLetterOrDigit(replacement.charAt(cursor))) {
+                        cursor++;
+                    }
+                    if (cursor == start) {
+                        throw new IllegalArgumentException("named capturing group has 0 length name");
+                    }
+                    if (cursor == length || replacement.charAt(cursor) != '}') {
+                        throw new IllegalArgumentException("named capturing group is missing trailing '}'");
+                    }
+                    String name = replacement.substring(start, cursor++);
+                    if (Character.isDigit(name.charAt(0))) {
+                        throw new IllegalArgumentException("capturing group name {" + name + "} starts with digit character");
+                    }
+                    Integer index = groupNames.get(name);
+                    if (index == null) {
+                        throw new IllegalArgumentException("No group with name {" + name + "}");
+                    }
+                    group = index;
+                } else {
+                    group = replacement.charAt(cursor) - '0';
+                    if (group < 0 || group > 9) {
+                        throw new IllegalArgumentException("Illegal group reference");
+                    }
+                    cursor++;
+                    // Take as many digits as still make a group that exists
+                    while (cursor < length) {
+                        int digit = replacement.charAt(cursor) - '0';
+                        if (digit < 0 || digit > 9 || group * 10 + digit > groupCount) {
+                            break;
+                        }
+                        group = group * 10 + digit;
+                        cursor++;
+                    }
+                }
+                if (group > groupCount) {
+                    throw new IndexOutOfBoundsException("No group " + group);
+                }
+                int start = slots[group * 2];
+                int end = slots[group * 2 + 1];
+                if (start >= 0 && end >= 0) {
+                    sb.append(s, start, end);
+                }
+            } else {
+                sb.append(c);
+            }
+        }
+    }
+
+    private static boolean isAsciiLetterOrDigit(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z' || c >= '0' && c <= '9';
+    }
+
+    private record Match(String text, int[] slots, int groupCount) implements MatchResult {
+        @Override
+        public int start() {
+            return slots[0];
+        }
+
+        @Override
+        public int start(int group) {
+            checkGroup(group);
+            return slots[group * 2];
+        }
+
+        @Override
+        public int end() {
+            return slots[1];
+        }
+
+        @Override
+        public int end(int group) {
+            checkGroup(group);
+            return slots[group * 2 + 1];
+        }
+
+        @Override
+        public String group() {
+            return group(0);
+        }
+
+        @Override
+        public String group(int group) {
+            checkGroup(group);
+            int start = slots[group * 2];
+            int end = slots[group * 2 + 1];
+            return start < 0 || end < 0 ? null : text.substring(start, end);
+        }
+
+        private void checkGroup(int group) {
+            if (group < 0 || group > groupCount) {
+                throw new IndexOutOfBoundsException("No group " + group);
+            }
+        }
+    }
+}
@@ -0,0 +1,41 @@
+package net.myitian.regex;
+
+import java.util.List;
+
+/**
+ * The syntax tree of a parsed pattern.
+ */
+sealed interface Node {
+    record CharClass(CharRanges ranges) implements Node {
+    }
+
+    record Concat(List<Node> nodes) implements Node {
+    }
+
+    record Alternation(List<Node> alternatives) implements Node {
+    }
+
+    /**
+     * @param max the maximum count, or -1 for no limit
+     */
+    record Repeat(Node node, int min, int max, boolean greedy) implements Node {
+    }
+
+    record Group(Node node, int index) implements Node {
+    }
+
+    record Assertion(int kind) implements Node {
+        /**
+         * {@code ^} without flags, or {@code \A}
+         */
+        static final int BEGIN = 0;
+        /**
+         * {@code $} without flags, or {@code \Z}: the end, or before a line terminator at the end
+         */
+        static final int END_BEFORE_TERMINATOR = 1;
+        /**
+         * {@code \z}
+         */
+        static final int END = 2;
+    }
+}
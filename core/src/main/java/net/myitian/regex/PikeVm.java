@@ -0,0 +1,165 @@
+package net.myitian.regex;
+
+import java.util.Arrays;
+
+/**
+ * Runs a {@link Program} on all of its threads in lockstep, in the style of RE2's Pike VM. Each position of the input
+ * is read once per thread at most, and there is at most one thread per instruction, so a search takes
+ * O(input length * program size) time.
+ * <p>
+ * Threads are kept in priority order and a match cuts every thread of lower priority, which gives the same
+ * leftmost-first result as a backtracking engine.
+ */
+final class PikeVm {
+    private final Program program;
+    private final CharSequence input;
+    private final int length;
+    private ThreadList current;
+    private ThreadList next;
+    private final int[] stackPcs;
+    private final int[][] stackSlots;
+
+    PikeVm(Program program, CharSequence input) {
+        this.program = program;
+        this.input = input;
+        length = input.length();
+        current = new ThreadList(program.size);
+        next = new ThreadList(program.size);
+        stackPcs = new int[program.size + 1];
+        stackSlots = new int[program.size + 1][];
+    }
+
+    /**
+     * @param from      the index to start searching from
+     * @param fullMatch whether the match must start at {@code from} and end at the end of the input
+     * @return the slots of the match, or null if there is none
+     */
+    int[] search(int from, boolean fullMatch) {
+        int[] initial = new int[program.slotCount];
+        Arrays.fill(initial, -1);
+        int[] matched = null;
+        current.clear();
+        int pos = from;
+        while (true) {
+            if (matched == null && (!fullMatch || pos == from)) {
+                // Added after the threads of earlier starts, so it has the lowest priority
+                addThread(current, 0, pos, initial);
+            }
+            if (current.count == 0 && (matched != null || fullMatch)) {
+                break;
+            }
+            int codePoint = -1;
+            int width = 1;
+            if (pos < length) {
+                codePoint = Character.codePointAt(input, pos);
+                width = Character.charCount(codePoint);
+            }
+            next.clear();
+            for (int i = 0; i < current.count; i++) {
+                int pc = current.pcs[i];
+                int[] slots = current.slots[i];
+                if (program.ops[pc] == Program.MATCH) {
+                    if (fullMatch) {
+                        if (pos == length) {
+                            return slots;
+                        }
+                        continue;
+                    }
+                    matched = slots;
+                    break;
+                } else if (codePoint >= 0 && program.classes[program.args1[pc]].contains(codePoint)) {
+                    addThread(next, pc + 1, pos + width, slots);
+                }
+            }
+            if (pos >= length) {
+                break;
+            }
+            pos += width;
+            var swap = current;
+            current = next;
+            next = swap;
+        }
+        return matched;
+    }
+
+    /**
+     * Follows the instructions that consume nothing from the given one, in priority order, and adds the threads
+     * reaching a {@link Program#CLASS} or {@link Program#MATCH} to the list.
+     */
+    private void addThread(ThreadList list, int startPc, int pos, int[] startSlots) {
+        int sp = 0;
+        stackPcs[sp] = startPc;
+        stackSlots[sp++] = startSlots;
+        while (sp > 0) {
+            int pc = stackPcs[--sp];
+            int[] slots = stackSlots[sp];
+            stackSlots[sp] = null;
+            while (list.mark(pc)) {
+                int op = program.ops[pc];
+                if (op == Program.JMP) {
+                    pc = program.args1[pc];
+                } else if (op == Program.SPLIT) {
+                    stackPcs[sp] = program.args2[pc];
+                    stackSlots[sp++] = slots;
+                    pc = program.args1[pc];
+                } else if (op == Program.SAVE) {
+                    // Slots are shared between threads until written
+                    slots = slots.clone();
+                    slots[program.args1[pc]] = pos;
+                    pc++;
+                } else if (op == Program.ASSERT) {
+                    if (!Program.checkAssertion(program.args1[pc], input, pos)) {
+                        break;
+                    }
+                    pc++;
+                } else {
+                    list.add(pc, slots);
+                    break;
+                }
+            }
+        }
+    }
+
+    /**
+     * Threads in priority order, with a sparse set of the visited instructions.
+     */
+    private static final class ThreadList {
+        private final int[] sparse;
+        private final int[] dense;
+        private int visited;
+        private final int[] pcs;
+        private final int[][] slots;
+        private int count;
+
+        private ThreadList(int size) {
+            sparse = new int[size];
+            dense = new int[size];
+            pcs = new int[size];
+            slots = new int[size][];
+        }
+
+        /**
+         * @return whether the instruction was not visited yet
+         */
+        private boolean mark(int pc) {
+            int i = sparse[pc];
+            if (i < visited && dense[i] == pc) {
+                return false;
+            }
+            sparse[pc] = visited;
+            dense[visited++] = pc;
+            return true;
+        }
+
+        private void add(int pc, int[] threadSlots) {
+            pcs[count] = pc;
+            slots[count++] = threadSlots;
+        }
+
+        private void clear() {
+            visited = 0;
+            Arrays.fill(slots, 0, count, null);
+            count = 0;
+        }
+    }
+}
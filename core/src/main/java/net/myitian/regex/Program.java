@@ -0,0 +1,177 @@
+package net.myitian.regex;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A pattern compiled to the instructions of a Thompson NFA. Instruction 0 is the start, and the whole match is
+ * saved to slots 0 and 1 like a group.
+ */
+final class Program {
+    static final int MATCH = 0;
+    /**
+     * Consumes a code point in {@code classes[arg1]}
+     */
+    static final int CLASS = 1;
+    /**
+     * Continues at {@code arg1}
+     */
+    static final int JMP = 2;
+    /**
+     * Continues at both {@code arg1} and {@code arg2}, preferring {@code arg1}
+     */
+    static final int SPLIT = 3;
+    /**
+     * Saves the position to slot {@code arg1}
+     */
+    static final int SAVE = 4;
+    /**
+     * Continues only if the {@link Node.Assertion} of kind {@code arg1} holds
+     */
+    static final int ASSERT = 5;
+
+    /**
+     * Counted repetition copies its operand, so the size is limited to keep matching fast
+     */
+    static final int MAX_SIZE = 10_000;
+
+    final int size;
+    final int[] ops;
+    final int[] args1;
+    final int[] args2;
+    final CharRanges[] classes;
+    final int slotCount;
+    final boolean hasAssertions;
+
+    private Program(Compiler compiler, int groupCount) {
+        size = compiler.size;
+        ops = Arrays.copyOf(compiler.ops, size);
+        args1 = Arrays.copyOf(compiler.args1, size);
+        args2 = Arrays.copyOf(compiler.args2, size);
+        classes = compiler.classes.toArray(new CharRanges[0]);
+        slotCount = (groupCount + 1) * 2;
+        hasAssertions = compiler.hasAssertions;
+    }
+
+    static Program compile(Node node, int groupCount) {
+        var compiler = new Compiler();
+        compiler.emit(SAVE, 0, 0);
+        compiler.compile(node);
+        compiler.emit(SAVE, 1, 0);
+        compiler.emit(MATCH, 0, 0);
+        return new Program(compiler, groupCount);
+    }
+
+    static boolean checkAssertion(int kind, CharSequence s, int pos) {
+        int length = s.length();
+        return switch (kind) {
+            case Node.Assertion.BEGIN -> pos == 0;
+            case Node.Assertion.END -> pos == length;
+            case Node.Assertion.END_BEFORE_TERMINATOR -> {
+                if (pos == length) {
+                    yield true;
+                } else if (pos == length - 2) {
+                    yield s.charAt(pos) == '\r' && s.charAt(pos + 1) == '\n';
+                } else if (pos == length - 1) {
+                    char c = s.charAt(pos);
+                    // Not between the chars of \r\n
+                    yield c == '\n' ? pos == 0 || s.charAt(pos - 1) != '\r'
+                            : c == '\r' || c == 0x85 || c == 0x2028 || c == 0x2029;
+                }
+                yield false;
+            }
+            default -> throw new IllegalStateException("Unknown assertion " + kind);
+        };
+    }
+
+    private static final class Compiler {
+        private final List<CharRanges> classes = new ArrayList<>();
+        private int[] ops = new int[16];
+        private int[] args1 = new int[16];
+        private int[] args2 = new int[16];
+        private int size;
+        private boolean hasAssertions;
+
+        private int emit(int op, int arg1, int arg2) {
+            if (size == MAX_SIZE) {
+                throw new UnsupportedRegexException("Compiled regex is larger than " + MAX_SIZE + " instructions");
+            }
+            if (size == ops.length) {
+                ops = Arrays.copyOf(ops, size * 2);
+                args1 = Arrays.copyOf(args1, size * 2);
+                args2 = Arrays.copyOf(args2, size * 2);
+            }
+            ops[size] = op;
+            args1[size] = arg1;
+            args2[size] = arg2;
+            return size++;
+        }
+
+        private void compile(Node node) {
+            if (node instanceof Node.CharClass charClass) {
+                emit(CLASS, classes.size(), 0);
+                classes.add(charClass.ranges());
+            } else if (node instanceof Node.Concat concat) {
+                for (Node child : concat.nodes()) {
+                    compile(child);
+                }
+            } else if (node instanceof Node.Alternation alternation) {
+                List<Node> alternatives = alternation.alternatives();
+                int[] jumps = new int[alternatives.size() - 1];
+                for (int i = 0; i < jumps.length; i++) {
+                    int split = emit(SPLIT, size + 1, 0);
+                    compile(alternatives.get(i));
+                    jumps[i] = emit(JMP, 0, 0);
+                    args2[split] = size;
+                }
+                compile(alternatives.get(jumps.length));
+                for (int jump : jumps) {
+                    args1[jump] = size;
+                }
+            } else if (node instanceof Node.Group group) {
+                emit(SAVE, group.index() * 2, 0);
+                compile(group.node());
+                emit(SAVE, group.index() * 2 + 1, 0);
+            } else if (node instanceof Node.Assertion assertion) {
+                emit(ASSERT, assertion.kind(), 0);
+                hasAssertions = true;
+            } else if (node instanceof Node.Repeat repeat) {
+                compileRepeat(repeat);
+            }
+        }
+
+        private void compileRepeat(Node.Repeat repeat) {
+            for (int i = 0; i < repeat.min(); i++) {
+                compile(repeat.node());
+            }
+            if (repeat.max() < 0) {
+                int split = emit(SPLIT, 0, 0);
+                int body = size;
+                compile(repeat.node());
+                emit(JMP, split, 0);
+                setSplit(split, body, size, repeat.greedy());
+            } else {
+                int optional = repeat.max() - repeat.min();
+                if (optional > MAX_SIZE) {
+                    throw new UnsupportedRegexException("Compiled regex is larger than " + MAX_SIZE + " instructions");
+                }
+                int[] splits = new int[optional];
+                int[] bodies = new int[optional];
+                for (int i = 0; i < optional; i++) {
+                    splits[i] = emit(SPLIT, 0, 0);
+                    bodies[i] = size;
+                    compile(repeat.node());
+                }
+                for (int i = 0; i < optional; i++) {
+                    setSplit(splits[i], bodies[i], size, repeat.greedy());
+                }
+            }
+        }
+
+        private void setSplit(int split, int body, int out, boolean greedy) {
+            args1[split] = greedy ? body : out;
+            args2[split] = greedy ? out : body;
+        }
+    }
+}
@@ -0,0 +1,459 @@
+package net.myitian.regex;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Parses the subset of {@link java.util.regex.Pattern} syntax that can run in linear time. The pattern must already
+ * be valid for {@code Pattern}, so anything unexpected is reported as unsupported rather than as a syntax error.
+ * <p>
+ * Not supported: backreferences, lookaround, atomic groups, possessive quantifiers, inline flags, word boundaries,
+ * {@code \G}, nested classes and class intersections, Unicode properties and other Java-specific classes, surrogate
+ * code units written in the pattern, and loops over something that can match the empty string.
+ */
+final class RegexParser {
+    private final String regex;
+    private final Map<String, Integer> groupNames = new HashMap<>();
+    private int pos;
+    private int groupCount;
+
+    private RegexParser(String regex) {
+        this.regex = regex;
+    }
+
+    /**
+     * @throws UnsupportedRegexException if the pattern uses syntax outside the supported subset
+     */
+    static Result parse(String regex) {
+        var parser = new RegexParser(regex);
+        Node node = parser.parseAlternation();
+        if (parser.pos < regex.length()) {
+            throw parser.unsupported();
+        }
+        return new Result(node, parser.groupCount, parser.groupNames);
+    }
+
+    private Node parseAlternation() {
+        List<Node> alternatives = new ArrayList<>();
+        alternatives.add(parseConcat());
+        while (pos < regex.length() && regex.charAt(pos) == '|') {
+            pos++;
+            alternatives.add(parseConcat());
+        }
+        return alternatives.size() == 1 ? alternatives.get(0) : new Node.Alternation(alternatives);
+    }
+
+    private Node parseConcat() {
+        List<Node> nodes = new ArrayList<>();
+        while (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '|' || c == ')') {
+                break;
+            }
+            if (regex.startsWith("\\Q", pos)) {
+                // Quoted chars are separate literals, so a quantifier after them applies to the last one only
+                pos += 2;
+                int end = regex.indexOf("\\E", pos);
+                String quoted = regex.substring(pos, end < 0 ? regex.length() : end);
+                pos = end < 0 ? regex.length() : end + 2;
+                int last = quoted.isEmpty() ? -1 : quoted.offsetByCodePoints(quoted.length(), -1);
+                for (int i = 0; i < last; ) {
+                    int codePoint = quoted.codePointAt(i);
+                    nodes.add(literal(codePoint));
+                    i += Character.charCount(codePoint);
+                }
+                if (last >= 0) {
+                    nodes.add(parseQuantifier(literal(quoted.codePointAt(last))));
+                }
+                continue;
+            }
+            nodes.add(parseQuantifier(parseAtom()));
+        }
+        return nodes.size() == 1 ? nodes.get(0) : new Node.Concat(nodes);
+    }
+
+    private Node parseQuantifier(Node atom) {
+        if (pos >= regex.length()) {
+            return atom;
+        }
+        int min;
+        int max;
+        switch (regex.charAt(pos)) {
+            case '*' -> {
+                min = 0;
+                max = -1;
+                pos++;
+            }
+            case '+' -> {
+                min = 1;
+                max = -1;
+                pos++;
+            }
+            case '?' -> {
+                min = 0;
+                max = 1;
+                pos++;
+            }
+            case '{' -> {
+                pos++;
+                min = readNumber();
+                max = min;
+                if (pos < regex.length() && regex.charAt(pos) == ',') {
+                    pos++;
+                    max = pos < regex.length() && regex.charAt(pos) == '}' ? -1 : readNumber();
+                }
+                expect('}');
+                if (max >= 0 && max < min) {
+                    throw unsupported();
+                }
+            }
+            default -> {
+                return atom;
+            }
+        }
+        boolean greedy = true;
+        if (pos < regex.length()) {
+            char c = regex.charAt(pos);
+            if (c == '?') {
+                greedy = false;
+                pos++;
+            } else if (c == '+') {
+                throw unsupported();
+            }
+        }
+        if (atom instanceof Node.Assertion || pos < regex.length() && "*+?{".indexOf(regex.charAt(pos)) >= 0) {
+            throw unsupported();
+        }
+        // Pattern stops a loop after one empty iteration, where the VM never takes an empty iteration at all,
+        // which changes both spans and captures
+        if ((max < 0 || max > 1) && isNullable(atom)) {
+            throw unsupported();
+        }
+        return new Node.Repeat(atom, min, max, greedy);
+    }
+
+    private static boolean isNullable(Node node) {
+        if (node instanceof Node.CharClass) {
+            return false;
+        } else if (node instanceof Node.Concat concat) {
+            return concat.nodes().stream().allMatch(RegexParser::isNullable);
+        } else if (node instanceof Node.Alternation alternation) {
+            return alternation.alternatives().stream().anyMatch(RegexParser::isNullable);
+        } else if (node instanceof Node.Repeat repeat) {
+            return repeat.min() == 0 || isNullable(repeat.node());
+        } else if (node instanceof Node.Group group) {
+            return isNullable(group.node());
+        }
+        return true;
+    }
+
+    private Node parseAtom() {
+        char c = regex.charAt(pos++);
+        switch (c) {
+            case '(' -> {
+                int index = -1;
+                if (regex.startsWith("?:", pos)) {
+                    pos += 2;
+                } else if (regex.startsWith("?<", pos) && pos + 2 < regex.length() && isAsciiLetter(regex.charAt(pos + 2))) {
+                    pos += 2;
+                    int end = regex.indexOf('>', pos);
+                    if (end < 0) {
+                        throw unsupported();
+                    }
+                    String name = regex.substring(pos, end);
+                    pos = end + 1;
+                    index = ++groupCount;
+                    groupNames.put(name, index);
+                } else if (pos < regex.length() && regex.charAt(pos) == '?') {
+                    // Lookaround, atomic groups and inline flags
+                    throw unsupported();
+                } else {
+                    index = ++groupCount;
+                }
+                Node inner = parseAlternation();
+                expect(')');
+                return index < 0 ? inner : new Node.Group(inner, index);
+            }
+            case '[' -> {
+                return new Node.CharClass(parseClass());
+            }
+            case '.' -> {
+                return new Node.CharClass(CharRanges.DOT);
+            }
+            case '^' -> {
+                return new Node.Assertion(Node.Assertion.BEGIN);
+            }
+            case '$' -> {
+                return new Node.Assertion(Node.Assertion.END_BEFORE_TERMINATOR);
+            }
+            case '\\' -> {
+                return parseEscape();
+            }
+            case '*', '+', '?', '{' -> throw unsupported();
+            default -> {
+                pos--;
+                int codePoint = regex.codePointAt(pos);
+                pos += Character.charCount(codePoint);
+                return literal(codePoint);
+            }
+        }
+    }
+
+    private Node parseEscape() {
+        if (pos >= regex.length()) {
+            throw unsupported();
+        }
+        char c = regex.charAt(pos);
+        switch (c) {
+            case 'A' -> {
+                pos++;
+                return new Node.Assertion(Node.Assertion.BEGIN);
+            }
+            case 'Z' -> {
+                pos++;
+                return new Node.Assertion(Node.Assertion.END_BEFORE_TERMINATOR);
+            }
+            case 'z' -> {
+                pos++;
+                return new Node.Assertion(Node.Assertion.END);
+            }
+            default -> {
+                CharRanges ranges = parseClassEscape();
+                return ranges != null ? new Node.CharClass(ranges) : literal(parseCharEscape());
+            }
+        }
+    }
+
+    /**
+     * @return the class of {@code \d}, {@code \w}, {@code \s} and their negations, or null if not one of them
+     */
+    private CharRanges parseClassEscape() {
+        CharRanges ranges = switch (regex.charAt(pos)) {
+            case 'd' -> CharRanges.DIGIT;
+            case 'D' -> CharRanges.DIGIT.complement();
+            case 'w' -> CharRanges.WORD;
+            case 'W' -> CharRanges.WORD.complement();
+            case 's' -> CharRanges.SPACE;
+            case 'S' -> CharRanges.SPACE.complement();
+            default -> null;
+        };
+        if (ranges != null) {
+            pos++;
+        }
+        return ranges;
+    }
+
+    /**
+     * Parses the escape of a single code point, after the backslash.
+     */
+    private int parseCharEscape() {
+        char c = regex.charAt(pos++);
+        switch (c) {
+            case 't':
+                return '\t';
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 'f':
+                return '\f';
+            case 'a':
+                return '\u0007';
+            case 'e':
+                return '\u001B';
+            case '0': {
+                int value = readOctalDigit();
+                int limit = value <= 3 ? 2 : 1;
+                for (int i = 0; i < limit && pos < regex.length() && isOctalDigit(regex.charAt(pos)); i++) {
+                    value = value * 8 + readOctalDigit();
+                }
+                return value;
+            }
+            case 'x': {
+                if (pos < regex.length() && regex.charAt(pos) == '{') {
+                    int end = regex.indexOf('}', ++pos);
+                    if (end < 0) {
+                        throw unsupported();
+                    }
+                    int value = parseHex(pos, end);
+                    pos = end + 1;
+                    return checkNotSurrogate(value);
+                }
+                int value = parseHex(pos, pos + 2);
+                pos += 2;
+                return value;
+            }
+            case 'u': {
+                int value = parseHex(pos, pos + 4);
+                pos += 4;
+                if (Character.isHighSurrogate((char) value) && regex.startsWith("\\u", pos)) {
+                    int low = parseHex(pos + 2, pos + 6);
+                    if (Character.isLowSurrogate((char) low)) {
+                        pos += 6;
+                        return Character.toCodePoint((char) value, (char) low);
+                    }
+                }
+                return checkNotSurrogate(value);
+            }
+            case 'c': {
+                if (pos >= regex.length()) {
+                    throw unsupported();
+                }
+                return regex.charAt(pos++) ^ 64;
+            }
+            default: {
+                if (isAsciiLetter(c) || c >= '0' && c <= '9') {
+                    // Backreferences, word boundaries, \G, \p, \h, \R and so on
+                    throw unsupported();
+                }
+                pos--;
+                int codePoint = regex.codePointAt(pos);
+                pos += Character.charCount(codePoint);
+                return checkNotSurrogate(codePoint);
+            }
+        }
+    }
+
+    /**
+     * Parses a class after its opening bracket.
+     */
+    private CharRanges parseClass() {
+        boolean negated = pos < regex.length() && regex.charAt(pos) == '^';
+        if (negated) {
+            pos++;
+        }
+        if (pos < regex.length() && regex.charAt(pos) == ']') {
+            throw unsupported();
+        }
+        CharRanges ranges = CharRanges.EMPTY;
+        while (true) {
+            if (pos >= regex.length()) {
+                throw unsupported();
+            }
+            char c = regex.charAt(pos);
+            if (c == ']') {
+                pos++;
+                break;
+            } else if (c == '[' || regex.startsWith("&&", pos)) {
+                throw unsupported();
+            }
+            if (c == '\\') {
+                pos++;
+                if (pos >= regex.length()) {
+                    throw unsupported();
+                }
+                CharRanges escaped = parseClassEscape();
+                if (escaped != null) {
+                    ranges = ranges.union(escaped);
+                    continue;
+                }
+                if (regex.charAt(pos) == 'Q') {
+                    throw unsupported();
+                }
+            }
+            int lo = parseClassChar();
+            int hi = lo;
+            if (pos + 1 < regex.length() && regex.charAt(pos) == '-' && regex.charAt(pos + 1) != ']') {
+                pos++;
+                if (regex.charAt(pos) == '[') {
+                    throw unsupported();
+                }
+                if (regex.charAt(pos) == '\\') {
+                    pos++;
+                    if (pos >= regex.length() || "dDwWsSQ".indexOf(regex.charAt(pos)) >= 0) {
+                        throw unsupported();
+                    }
+                }
+                hi = parseClassChar();
+            }
+            if (hi < lo || lo <= Character.MAX_SURROGATE && hi >= Character.MIN_SURROGATE) {
+                throw unsupported();
+            }
+            ranges = ranges.union(CharRanges.of(lo, hi));
+        }
+        return negated ? ranges.complement() : ranges;
+    }
+
+    /**
+     * Parses a single code point in a class, right after its backslash if escaped.
+     */
+    private int parseClassChar() {
+        if (regex.charAt(pos - 1) == '\\') {
+            return parseCharEscape();
+        }
+        int codePoint = regex.codePointAt(pos);
+        pos += Character.charCount(codePoint);
+        return codePoint;
+    }
+
+    private Node literal(int codePoint) {
+        return new Node.CharClass(CharRanges.of(checkNotSurrogate(codePoint), codePoint));
+    }
+
+    private int checkNotSurrogate(int codePoint) {
+        if (codePoint >= Character.MIN_SURROGATE && codePoint <= Character.MAX_SURROGATE) {
+            throw unsupported();
+        }
+        return codePoint;
+    }
+
+    private int readNumber() {
+        int start = pos;
+        while (pos < regex.length() && regex.charAt(pos) >= '0' && regex.charAt(pos) <= '9') {
+            pos++;
+        }
+        if (start == pos || pos - start > 9) {
+            throw unsupported();
+        }
+        return Integer.parseInt(regex, start, pos, 10);
+    }
+
+    private int readOctalDigit() {
+        if (pos >= regex.length() || !isOctalDigit(regex.charAt(pos))) {
+            throw unsupported();
+        }
+        return regex.charAt(pos++) - '0';
+    }
+
+    private int parseHex(int start, int end) {
+        if (end > regex.length() || end <= start || end - start > 8) {
+            throw unsupported();
+        }
+        int value = 0;
+        for (int i = start; i < end; i++) {
+            int digit = Character.digit(regex.charAt(i), 16);
+            if (digit < 0) {
+                throw unsupported();
+            }
+            value = value * 16 + digit;
+        }
+        if (value < 0 || value > Character.MAX_CODE_POINT) {
+            throw unsupported();
+        }
+        return value;
+    }
+
+    private void expect(char c) {
+        if (pos >= regex.length() || regex.charAt(pos) != c) {
+            throw unsupported();
+        }
+        pos++;
+    }
+
+    private UnsupportedRegexException unsupported() {
+        return new UnsupportedRegexException(regex, pos);
+    }
+
+    private static boolean isOctalDigit(char c) {
+        return c >= '0' && c <= '7';
+    }
+
+    private static boolean isAsciiLetter(char c) {
+        return c >= 'a' && c <= 'z' || c >= 'A' && c <= 'Z';
+    }
+
+    record Result(Node node, int groupCount, Map<String, Integer> groupNames) {
+    }
+}
@@ -0,0 +1,20 @@
+package net.myitian.regex;
+
+import java.io.Serial;
+
+/**
+ * Thrown when a pattern uses syntax that cannot be matched in linear time, or that is not implemented.
+ */
+class UnsupportedRegexException extends RuntimeException {
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    UnsupportedRegexException(String regex, int index) {
+        this("Unsupported regex syntax at index " + index + ": " + regex);
+    }
+
+    UnsupportedRegexException(String message) {
+        // Only used to pick another engine, so there is no need for a stack trace
+        super(message, null, false, false);
+    }
+}
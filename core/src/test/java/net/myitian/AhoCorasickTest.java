@@ -0,0 +1,142 @@
+package net.myitian;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class AhoCorasickTest {
+    @Test
+    void overlappingNeedlesDoNotOverlapInMatches() {
+        var automaton = AhoCorasick.create(List.of("he", "she", "his", "hers"));
+        // "she" starts first, so "hers" starting inside it is skipped
+        assertArrayEquals(new int[]{1, 4, 1}, automaton.matchAll("ushers"));
+        assertArrayEquals(new int[]{1, 4, 2, 4, 6, 0}, automaton.matchAll("ahishe"));
+    }
+
+    @Test
+    void leftmostWinsOverLongest() {
+        var automaton = AhoCorasick.create(List.of("bcd", "ab"));
+        assertArrayEquals(new int[]{0, 2, 1}, automaton.matchAll("abcd"));
+        assertEquals(0, automaton.indexOfAny("abcd"));
+    }
+
+    @Test
+    void longestWinsAtTheSameStart() {
+        var automaton = AhoCorasick.create(List.of("a", "ab", "abc"));
+        assertArrayEquals(new int[]{0, 3, 2, 3, 5, 1, 5, 6, 0}, automaton.matchAll("abcaba"));
+    }
+
+    @Test
+    void duplicateNeedleMatchesAsItsFirstIndex() {
+        var automaton = AhoCorasick.create(List.of("x", "ab", "ab"));
+        assertArrayEquals(new int[]{0, 2, 1}, automaton.matchAll("ab"));
+        assertEquals("[ab]", automaton.replaceEach("ab", List.of("?", "[ab]", "never")));
+    }
+
+    @Test
+    void emptyNeedlesAreIgnored() {
+        var automaton = AhoCorasick.create(List.of("", "b"));
+        assertEquals(2, automaton.needleCount());
+        assertArrayEquals(new int[]{1, 2, 1}, automaton.matchAll("ab"));
+        assertFalse(automaton.containsAny("aaa"));
+        assertTrue(automaton.containsAny("aab"));
+    }
+
+    @Test
+    void replaceEach() {
+        var automaton = AhoCorasick.create(List.of("cat", "dog", "catalog"));
+        assertEquals("a DOG, a CATALOG and a CAT", automaton.replaceEach("a dog, a catalog and a cat",
+                List.of("CAT", "DOG", "CATALOG")));
+        String unchanged = "no match";
+        assertSame(unchanged, automaton.replaceEach(unchanged, List.of("1", "2", "3")));
+        assertThrows(IllegalArgumentException.class, () -> automaton.replaceEach("cat", List.of("1")));
+    }
+
+    @Test
+    void matchesNaiveSearch() {
+        var random = new Random(42);
+        for (int round = 0; round < 500; round++) {
+            var needles = new ArrayList<String>();
+            int count = 1 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                needles.add(randomString(random, random.nextInt(4)));
+            }
+            String s = randomString(random, random.nextInt(24));
+            assertArrayEquals(naiveMatchAll(needles, s), AhoCorasick.create(needles).matchAll(s),
+                    () -> needles + " in \"" + s + '"');
+        }
+    }
+
+    @Test
+    void largeAlphabetsMatchNaiveSearch() {
+        // Hundreds of CJK needles make the DFA table too large, so the trie and its fail links are used
+        var random = new Random(7);
+        for (int round = 0; round < 100; round++) {
+            var needles = new ArrayList<String>();
+            for (int i = 0; i < 300; i++) {
+                needles.add(String.valueOf((char) ('\u4e00' + i)));
+            }
+            int count = 1 + random.nextInt(6);
+            for (int i = 0; i < count; i++) {
+                needles.add(randomString(random, random.nextInt(4)) + (char) ('\u4e00' + random.nextInt(400)));
+            }
+            var sb = new StringBuilder();
+            for (int i = random.nextInt(24); i > 0; i--) {
+                sb.append(random.nextInt(4) == 0 ? (char) ('\u4e00' + random.nextInt(400)) : (char) ('a' + random.nextInt(3)));
+            }
+            String s = sb.toString();
+            assertArrayEquals(naiveMatchAll(needles, s), AhoCorasick.create(needles).matchAll(s),
+                    () -> needles.subList(300, needles.size()) + " in \"" + s + '"');
+        }
+    }
+
+    @Test
+    void tooLongNeedlesAreRejected() {
+        String needle = "x".repeat(AhoCorasick.MAX_NEEDLE_CHARS);
+        assertEquals(1, AhoCorasick.create(List.of(needle)).needleCount());
+        var e = assertThrows(StringTooLongException.class, () -> AhoCorasick.create(Collections.nCopies(4096, needle)));
+        assertEquals(4096L * needle.length(), e.getLength());
+    }
+
+    /**
+     * Leftmost-longest, non-overlapping, the first index among equal needles
+     */
+    private static int[] naiveMatchAll(List<String> needles, String s) {
+        var triples = new ArrayList<Integer>();
+        int from = 0;
+        while (from < s.length()) {
+            int found = -1;
+            for (int start = from; start < s.length() && found < 0; start++) {
+                for (int i = 0; i < needles.size(); i++) {
+                    String needle = needles.get(i);
+                    if (!needle.isEmpty() && s.startsWith(needle, start)
+                            && (found < 0 || needle.length() > needles.get(found).length())) {
+                        found = i;
+                    }
+                }
+                if (found >= 0) {
+                    triples.addAll(Arrays.asList(start, start + needles.get(found).length(), found));
+                    from = start + needles.get(found).length();
+                }
+            }
+            if (found < 0) {
+                break;
+            }
+        }
+        return triples.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static String randomString(Random random, int length) {
+        var sb = new StringBuilder(length);
+        for (int i = 0; i < length; i++) {
+            sb.append((char) ('a' + random.nextInt(3)));
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,68 @@
+package net.myitian;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class CodePointSetTest {
+    private static final String EMOJI = "😀";
+    private static final String CLOVER = "🍀";
+
+    @Test
+    void containsEveryCodePointOfTheString() {
+        var set = CodePointSet.create("a　" + EMOJI + " ");
+        assertTrue(set.contains('a'));
+        assertTrue(set.contains('　'));
+        assertTrue(set.contains(' '));
+        assertTrue(set.contains(EMOJI.codePointAt(0)));
+        assertFalse(set.contains('b'));
+        assertFalse(set.contains(' '));
+        assertFalse(set.contains('￿'));
+        assertFalse(set.contains(CLOVER.codePointAt(0)));
+        // The halves of a pair are not members on their own
+        assertFalse(set.contains(EMOJI.charAt(0)));
+        assertFalse(set.contains(EMOJI.charAt(1)));
+    }
+
+    @Test
+    void emptySetContainsNothing() {
+        var set = CodePointSet.create("");
+        assertFalse(set.contains(0));
+        assertFalse(set.contains('a'));
+        assertFalse(set.contains(EMOJI.codePointAt(0)));
+    }
+
+    @Test
+    void trimRemovesSupplementaryCodePoints() {
+        var set = CodePointSet.create(EMOJI + CLOVER);
+        assertEquals("a", StringExtension.trim(EMOJI + CLOVER + "a" + EMOJI, set));
+        assertEquals("a" + EMOJI, StringExtension.trimStart(CLOVER + "a" + EMOJI, set));
+        assertEquals(CLOVER + "a", StringExtension.trimEnd(CLOVER + "a" + EMOJI + EMOJI, set));
+        assertEquals("", StringExtension.trim(EMOJI + CLOVER + EMOJI, set));
+    }
+
+    @Test
+    void trimKeepsPairsThatAreNotInTheSet() {
+        var set = CodePointSet.create(EMOJI);
+        assertEquals(CLOVER, StringExtension.trim(EMOJI + CLOVER + EMOJI, set));
+        // A lone low surrogate does not match the pair it ends, so nothing is cut in half
+        var lowOnly = CodePointSet.create(EMOJI.substring(1));
+        assertEquals(EMOJI, StringExtension.trim(EMOJI, lowOnly));
+    }
+
+    @Test
+    void trimRemovesWhitespaceCodePoints() {
+        var set = CodePointSet.create(" \t　 ");
+        assertEquals("a b", StringExtension.trim("　 a b\t ", set));
+        assertEquals("a　", StringExtension.trimStart(" a　", set));
+        assertEquals(" a", StringExtension.trimEnd(" a　", set));
+        assertEquals("", StringExtension.trim("　　", set));
+    }
+
+    @Test
+    void nullSetTrimsLikeStringTrim() {
+        for (String s : new String[]{"", " ", " a ", "\ta　", "\u0000a\u0001"}) {
+            assertEquals(s.trim(), StringExtension.trim(s, null));
+        }
+    }
+}
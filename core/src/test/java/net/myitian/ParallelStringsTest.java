@@ -0,0 +1,101 @@
+package net.myitian;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class ParallelStringsTest {
+    // Around the minimum chunk size and across several chunks
+    private static final int[] SIZES = {1, 1023, 1024, 1025, 2047, 2048, 2049, 10000};
+
+    @BeforeEach
+    void runEverythingInParallel() {
+        ParallelStrings.setThreshold(1);
+        assertTrue(ParallelStrings.isParallel(1), "the common pool needs more than one thread");
+    }
+
+    @AfterEach
+    void restoreThreshold() {
+        ParallelStrings.setThreshold(ParallelStrings.DEFAULT_THRESHOLD);
+    }
+
+    @Test
+    void concatAndJoinMatchSequential() {
+        for (int size : SIZES) {
+            var strings = new String[size];
+            for (int i = 0; i < size; i++) {
+                strings[i] = i % 7 == 0 ? "" : Integer.toString(i);
+            }
+            assertEquals(StringExtension.concat(strings), ParallelStrings.concat(strings), "size " + size);
+            assertEquals(StringExtension.join(", ", strings), ParallelStrings.join(", ", strings), "size " + size);
+            assertEquals(StringExtension.join("", strings), ParallelStrings.join("", strings), "size " + size);
+        }
+    }
+
+    @Test
+    void fromCodePointsKeepsPairsAcrossChunkBoundaries() {
+        for (int size : SIZES) {
+            var codePoints = new int[size];
+            for (int i = 0; i < size; i++) {
+                // Mix one and two char code points so chunk offsets differ from element offsets
+                codePoints[i] = i % 3 == 0 ? 0x1F600 + i % 80 : 'a' + i % 26;
+            }
+            assertEquals(StringExtension.fromCodePoints(codePoints), ParallelStrings.fromCodePoints(codePoints), "size " + size);
+        }
+    }
+
+    @Test
+    void fromCodePointsRejectsInvalidCodePoints() {
+        var codePoints = new int[5000];
+        Arrays.fill(codePoints, 'a');
+        codePoints[4999] = -1;
+        var e = assertThrows(IllegalArgumentException.class, () -> ParallelStrings.fromCodePoints(codePoints));
+        assertEquals("-1", e.getMessage());
+    }
+
+    @Test
+    void mapKeepsOrder() {
+        for (int size : SIZES) {
+            var input = new Integer[size];
+            Arrays.setAll(input, i -> i);
+            var output = new String[size];
+            ParallelStrings.map(input, output, i -> "#" + i);
+            for (int i = 0; i < size; i++) {
+                assertEquals("#" + i, output[i]);
+            }
+        }
+    }
+
+    @Test
+    void mapRethrowsTheMapperException() {
+        var input = new Integer[10000];
+        Arrays.setAll(input, i -> i);
+        var output = new String[input.length];
+        var checked = assertThrows(IOException.class, () -> ParallelStrings.map(input, output, i -> {
+            if (i == 7000) {
+                throw new IOException("element " + i);
+            }
+            return "";
+        }));
+        assertEquals("element 7000", checked.getMessage());
+        var unchecked = assertThrows(IllegalStateException.class, () -> ParallelStrings.map(input, output, i -> {
+            if (i % 1500 == 0) {
+                throw new IllegalStateException();
+            }
+            return "";
+        }));
+        assertNull(unchecked.getCause());
+    }
+
+    @Test
+    void zeroThresholdNeverRunsInParallel() {
+        ParallelStrings.setThreshold(0);
+        assertFalse(ParallelStrings.isParallel(Integer.MAX_VALUE));
+        assertThrows(IntegerOutOfRangeException.class, () -> ParallelStrings.setThreshold(-1));
+    }
+}
@@ -0,0 +1,84 @@
+package net.myitian;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class RegexBudgetTest {
+    private static final String INPUT = "a".repeat(4096);
+
+    @AfterEach
+    void reset() {
+        RegexBudget.setTimeoutMillis(RegexBudget.DEFAULT_TIMEOUT_MILLIS);
+        RegexBudget.resetViolations();
+    }
+
+    @Test
+    void offByDefault() {
+        assertEquals(0, RegexBudget.getTimeoutMillis());
+        assertSame(INPUT, RegexBudget.wrap(INPUT));
+    }
+
+    @Test
+    void catastrophicBacktrackingRunsOutOfBudget() {
+        RegexBudget.setTimeoutMillis(50);
+        // The backreference keeps the JDK from caching failed loop positions
+        var pattern = Pattern.compile("(a+)+\\1b");
+        var e = assertTimeoutPreemptively(Duration.ofSeconds(10),
+                () -> assertThrows(RegexBudget.TimeoutException.class, () -> RegexBudget.matcher(pattern, "a".repeat(64)).matches()));
+        assertEquals(50, e.getTimeoutMillis());
+        assertEquals(1, RegexBudget.getViolations());
+    }
+
+    @Test
+    void budgetIsPerWrap() throws InterruptedException {
+        RegexBudget.setTimeoutMillis(20);
+        var pattern = Pattern.compile("a*");
+        assertTrue(RegexBudget.matcher(pattern, INPUT).matches());
+        Thread.sleep(40);
+        // A new wrap starts a new budget, the time since the last one does not count
+        assertTrue(RegexBudget.matcher(pattern, INPUT).matches());
+        assertEquals(0, RegexBudget.getViolations());
+    }
+
+    @Test
+    void pausedBudgetIsNotSpent() throws InterruptedException {
+        RegexBudget.setTimeoutMillis(20);
+        var budgeted = RegexBudget.wrapPaused(INPUT);
+        Thread.sleep(40);
+        readAll(budgeted);
+        budgeted.resume();
+        readAll(budgeted);
+        budgeted.pause();
+        Thread.sleep(40);
+        budgeted.resume();
+        readAll(budgeted);
+        budgeted.pause();
+        assertEquals(0, RegexBudget.getViolations());
+    }
+
+    @Test
+    void resumedBudgetIsSpent() throws InterruptedException {
+        RegexBudget.setTimeoutMillis(20);
+        var budgeted = RegexBudget.wrapPaused(INPUT);
+        budgeted.resume();
+        Thread.sleep(40);
+        assertThrows(RegexBudget.TimeoutException.class, () -> readAll(budgeted));
+        assertEquals(1, RegexBudget.getViolations());
+    }
+
+    @Test
+    void negativeTimeoutIsRejected() {
+        assertThrows(IntegerOutOfRangeException.class, () -> RegexBudget.setTimeoutMillis(-1));
+    }
+
+    private static void readAll(CharSequence s) {
+        for (int i = 0; i < s.length(); i++) {
+            assertEquals('a', s.charAt(i));
+        }
+    }
+}
@@ -0,0 +1,87 @@
+package net.myitian;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringBuilderRegistryTest {
+    @AfterEach
+    void reset() {
+        StringBuilderRegistry.clear();
+        StringBuilderRegistry.setMaxChars(StringBuilderRegistry.DEFAULT_MAX_CHARS);
+        StringBuilderRegistry.setIdleTimeout(StringBuilderRegistry.DEFAULT_IDLE_TIMEOUT_SECONDS);
+    }
+
+    @Test
+    void totalFollowsEveryChange() {
+        var a = StringBuilderRegistry.create("a");
+        var b = StringBuilderRegistry.create("b");
+        assertEquals(5, a.append("hello"));
+        assertEquals(6, a.insert(-1, "!"));
+        assertEquals("hell!o", a.toString());
+        assertEquals(3, b.append("abc"));
+        assertEquals(9, StringBuilderRegistry.getTotalChars());
+        assertEquals(4, a.delete(2, 4));
+        assertEquals("he!o", a.toString());
+        assertEquals(7, StringBuilderRegistry.getTotalChars());
+        assertEquals(1, b.delete(1));
+        assertEquals(5, StringBuilderRegistry.getTotalChars());
+        // Replacing a builder releases its chars
+        StringBuilderRegistry.create("a");
+        assertEquals(1, StringBuilderRegistry.getTotalChars());
+        assertTrue(StringBuilderRegistry.free("b"));
+        assertFalse(StringBuilderRegistry.free("b"));
+        assertEquals(0, StringBuilderRegistry.getTotalChars());
+        assertEquals(1, StringBuilderRegistry.size());
+    }
+
+    @Test
+    void maxCharsIsSharedByAllBuilders() {
+        StringBuilderRegistry.setMaxChars(10);
+        var a = StringBuilderRegistry.create("a");
+        var b = StringBuilderRegistry.create("b");
+        a.append("123456");
+        b.append("1234");
+        var e = assertThrows(StringBuilderRegistry.CapacityExceededException.class, () -> b.append("5"));
+        assertEquals(10, e.getMaxChars());
+        assertThrows(StringBuilderRegistry.CapacityExceededException.class, () -> a.insert(0, "0"));
+        // A failed change leaves the builder and the total as they were
+        assertEquals("1234", b.toString());
+        assertEquals(10, StringBuilderRegistry.getTotalChars());
+        a.delete(0, 1);
+        assertEquals(5, b.append("5"));
+    }
+
+    @Test
+    void badIndexesChangeNothing() {
+        var a = StringBuilderRegistry.create("a");
+        a.append("abc");
+        assertThrows(IntegerOutOfRangeException.class, () -> a.insert(5, "x"));
+        assertThrows(IntegerOutOfRangeException.class, () -> a.delete(2, 1));
+        assertEquals("abc", a.toString());
+        assertEquals(3, StringBuilderRegistry.getTotalChars());
+    }
+
+    @Test
+    void idleBuildersAreSweptOnLookup() throws InterruptedException {
+        StringBuilderRegistry.setIdleTimeout(1);
+        StringBuilderRegistry.create("idle").append("abc");
+        StringBuilderRegistry.create("used").append("de");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(500);
+            assertNotNull(StringBuilderRegistry.get("used"));
+        }
+        assertNull(StringBuilderRegistry.get("idle"));
+        assertEquals(2, StringBuilderRegistry.getTotalChars());
+        assertEquals(1, StringBuilderRegistry.size());
+    }
+
+    @Test
+    void zeroIdleTimeoutKeepsBuilders() throws InterruptedException {
+        StringBuilderRegistry.setIdleTimeout(0);
+        StringBuilderRegistry.create("kept");
+        Thread.sleep(1100);
+        assertNotNull(StringBuilderRegistry.get("kept"));
+    }
+}
@@ -0,0 +1,136 @@
+package net.myitian;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringExtensionTest {
+    private static final String[] INPUTS = {"", ",", ",,", "a", "a,b", ",a,,b,", "a,,b,c,,", ",,a", "abc"};
+    private static final String[] SEPARATORS = {",", ",+", "", "b", "x"};
+
+    @Test
+    void streamingSplitMatchesPatternSplit() {
+        for (RegexEngine engine : RegexEngine.values()) {
+            for (String separator : SEPARATORS) {
+                var pattern = Pattern.compile(separator);
+                for (String s : INPUTS) {
+                    for (int limit = 0; limit <= 3; limit++) {
+                        assertEquals(List.of(pattern.split(s, limit)), split(s, separator, limit, false, false, engine),
+                                describe(engine, separator, s, limit));
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    void literalSplitQuotesTheSeparator() {
+        for (String separator : new String[]{",", ".", "a|b", "", "\\"}) {
+            var pattern = Pattern.compile(Pattern.quote(separator));
+            for (String s : new String[]{"", "a.b.c", "a|b,a|b", "x\\y", "..", "abc"}) {
+                for (int limit = 0; limit <= 3; limit++) {
+                    assertEquals(List.of(pattern.split(s, limit)), split(s, separator, limit, true, false, RegexEngine.JAVA),
+                            describe(null, separator, s, limit));
+                }
+            }
+        }
+    }
+
+    @Test
+    void escapedRegexMatchesItsInputLiterally() {
+        String specials = "{}()[].+*?^$\\|";
+        for (String s : new String[]{"", "abc", specials, "a.b", "\\Q\\E", "x{2}", "-&,:<=>!#"}) {
+            String escaped = StringExtension.escapeRegex(s);
+            assertTrue(Pattern.compile(escaped).matcher(s).matches(), escaped);
+            for (RegexEngine engine : RegexEngine.values()) {
+                for (String input : new String[]{s, s + s, "<" + s + ">"}) {
+                    assertEquals(split(input, s, 0, true, false, engine), split(input, escaped, 0, false, false, engine),
+                            describe(engine, escaped, input, 0));
+                }
+            }
+        }
+        // Nothing to escape returns the same string
+        String plain = "plain text";
+        assertSame(plain, StringExtension.escapeRegex(plain));
+        assertEquals("\\.\\.", StringExtension.escapeRegex(".."));
+    }
+
+    @Test
+    void replaceFirstLiteralReplacesOnlyTheFirstTarget() {
+        assertEquals("a$1b.c", StringExtension.replaceFirstLiteral("a.b.c", ".", "$1"));
+        assertEquals("abc", StringExtension.replaceFirstLiteral("abc", "x", "y"));
+        assertEquals("yabc", StringExtension.replaceFirstLiteral("abc", "", "y"));
+        assertEquals("", StringExtension.replaceFirstLiteral("abc", "abc", ""));
+    }
+
+    @Test
+    void skipEmptyDropsEveryEmptyPiece() {
+        assertEquals(List.of("a", "b"), split(",a,,b,", ",", 0, true, true, RegexEngine.JAVA));
+        assertEquals(List.of(), split("", ",", 0, true, true, RegexEngine.JAVA));
+        assertEquals(List.of(), split(",,,", ",", 0, false, true, RegexEngine.JAVA));
+        assertEquals(List.of("abc"), split("abc", ",", 0, false, true, RegexEngine.LINEAR));
+        assertEquals(List.of("a", "b", "c"), split("abc", "", 0, true, true, RegexEngine.JAVA));
+    }
+
+    @Test
+    void skippedPiecesDoNotCountTowardTheLimit() {
+        assertEquals(List.of("a", "b,c"), split("a,,b,c", ",", 2, true, true, RegexEngine.JAVA));
+        assertEquals(List.of("a", "b"), split(",,a,b", ",", 2, false, true, RegexEngine.LINEAR));
+        assertEquals(List.of("a", "b", "c,,"), split("a,,b,c,,", ",", 3, true, true, RegexEngine.JAVA));
+        assertEquals(List.of("a,,b"), split("a,,b", ",", 1, true, true, RegexEngine.JAVA));
+    }
+
+    @Test
+    void splitReturnsThePieceCount() {
+        var pieces = new ArrayList<String>();
+        assertEquals(3, StringExtension.split("a,b,", ",", 3, true, false, pieces::add));
+        assertEquals(List.of("a", "b", ""), pieces);
+        assertThrows(IntegerOutOfRangeException.class, () -> StringExtension.split("a", ",", -1, true, false, pieces::add));
+    }
+
+    @Test
+    void concatJoinsEverySource() {
+        assertEquals("", StringExtension.concat(new String[0]));
+        assertEquals("a", StringExtension.concat(new String[]{"a"}));
+        assertEquals("ab,c", StringExtension.concat(new String[]{"a", "", "b", ",c"}));
+    }
+
+    @Test
+    void concatRejectsTooLongResultsBeforeBuilding() {
+        String part = "x".repeat(StringExtension.MAX_RESULT_LENGTH / 4);
+        assertEquals(StringExtension.MAX_RESULT_LENGTH, StringExtension.concat(new String[]{part, part, part, part}).length());
+        var parts = new String[4096];
+        Arrays.fill(parts, part);
+        var e = assertThrows(StringTooLongException.class, () -> StringExtension.concat(parts));
+        assertEquals(4096L * part.length(), e.getLength());
+    }
+
+    @Test
+    void joinAndRepeatRejectTooLongResultsBeforeBuilding() {
+        String delimiter = "x".repeat(65536);
+        var parts = new String[65536];
+        Arrays.fill(parts, "");
+        var e = assertThrows(StringTooLongException.class, () -> StringExtension.join(delimiter, parts));
+        assertEquals(65535L * 65536, e.getLength());
+        assertThrows(StringTooLongException.class, () -> StringExtension.joinChars(delimiter, "y".repeat(65536)));
+        assertThrows(StringTooLongException.class, () -> StringExtension.repeat(delimiter, Integer.MAX_VALUE));
+        assertEquals("a,b", StringExtension.join(",", new String[]{"a", "b"}));
+        assertEquals("a,b", StringExtension.joinChars(",", "ab"));
+    }
+
+    private static List<String> split(String s, String separator, int limit, boolean literal, boolean skipEmpty, RegexEngine engine) {
+        var pieces = new ArrayList<String>();
+        int count = StringExtension.split(s, separator, limit, literal, skipEmpty, engine, pieces::add);
+        assertEquals(pieces.size(), count);
+        return pieces;
+    }
+
+    private static String describe(RegexEngine engine, String separator, String s, int limit) {
+        return engine + " /" + separator + "/ on \"" + s + "\" limit " + limit;
+    }
+}
@@ -0,0 +1,88 @@
+package net.myitian;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StringTemplateTest {
+    @Test
+    void indexedPlaceholders() {
+        var template = StringTemplate.parse("{0} has {1} coins ({2}%)");
+        assertEquals(3, template.placeholderCount());
+        var arguments = List.of("Alex", "12", "40");
+        assertEquals("Alex has 12 coins (40%)", template.format((index, name) -> arguments.get(index)));
+    }
+
+    @Test
+    void namedPlaceholders() {
+        var template = StringTemplate.parse("{name}: {1}{}");
+        var seen = new StringBuilder();
+        String result = template.format((index, name) -> {
+            seen.append(index).append('=').append(name).append(';');
+            return "<" + name + ">";
+        });
+        assertEquals("<name>: <1><>", result);
+        assertEquals("-1=name;1=1;-1=;", seen.toString());
+    }
+
+    @Test
+    void indexesAreAsciiDigitsOnly() {
+        var indexes = new StringBuilder();
+        StringTemplate.parse("{01}{+1}{1234567890}{\u0663}").format((index, name) -> {
+            indexes.append(index).append(' ');
+            return "";
+        });
+        assertEquals("1 -1 -1 -1 ", indexes.toString());
+    }
+
+    @Test
+    void doubledBracesAreLiterals() {
+        var template = StringTemplate.parse("{{0}} is {0}, }} and {{");
+        assertEquals(1, template.placeholderCount());
+        assertEquals("{0} is x, } and {", template.format((index, name) -> "x"));
+    }
+
+    @Test
+    void noPlaceholders() {
+        var template = StringTemplate.parse("plain");
+        assertEquals(0, template.placeholderCount());
+        assertEquals("plain", template.format((index, name) -> fail("no argument expected")));
+        assertEquals("", StringTemplate.parse("").format((index, name) -> fail("no argument expected")));
+    }
+
+    @Test
+    void malformedTemplates() {
+        assertThrows(IllegalArgumentException.class, () -> StringTemplate.parse("{0"));
+        assertThrows(IllegalArgumentException.class, () -> StringTemplate.parse("a}b"));
+        assertThrows(IllegalArgumentException.class, () -> StringTemplate.parse("{0}}"));
+    }
+
+    @Test
+    void lookupErrorsPropagate() {
+        var template = StringTemplate.parse("{missing}");
+        var arguments = Map.<String, String>of();
+        assertThrows(IllegalStateException.class, () -> template.format((index, name) -> {
+            String value = arguments.get(name);
+            if (value == null) {
+                throw new IllegalStateException(name);
+            }
+            return value;
+        }));
+    }
+
+    @Test
+    void tooLongResultsAreRejectedBeforeBuilding() {
+        String part = "x".repeat(StringExtension.MAX_RESULT_LENGTH / 2);
+        var template = StringTemplate.parse("{0}{0}{0}");
+        var e = assertThrows(StringTooLongException.class, () -> template.format((index, name) -> part));
+        assertEquals(3L * part.length(), e.getLength());
+    }
+
+    @Test
+    void ofCachesParsedTemplates() {
+        assertSame(StringTemplate.of("{0}-{1}"), StringTemplate.of("{0}-{1}"));
+    }
+}
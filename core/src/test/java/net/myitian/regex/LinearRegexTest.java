@@ -0,0 +1,120 @@
+package net.myitian.regex;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Checks {@link LinearRegex} against {@link Pattern} on every string over a small alphabet.
+ */
+class LinearRegexTest {
+    private static final String[] PATTERNS = {
+            "a", "ab", "ab|b", "a|", "a*", "b*", "a+b?", "a{2,3}", "a{2,}", "a.c", ".",
+            "[ab]+", "[^a]", "[a-c]{2}", "\\w\\W?", "\\d*",
+            "(a|b)c", "(a)(b)?", "(a*)b", "(?:ab)+", "(a|ab)(c|bcd)?", "c|bc|abc", "(?<x>b+)c",
+            "^a", "b$", "^$", "^(ab|a)*$",
+    };
+    private static final String ALPHABET = "abc";
+    private static final int MAX_LENGTH = 6;
+
+    @Test
+    void matches() {
+        for (String regex : PATTERNS) {
+            var linear = compile(regex);
+            var pattern = Pattern.compile(regex);
+            for (String s : inputs()) {
+                assertEquals(pattern.matcher(s).matches(), linear.matches(s), () -> describe(regex, s));
+            }
+        }
+    }
+
+    @Test
+    void findSpansWithGroups() {
+        for (String regex : PATTERNS) {
+            var linear = compile(regex);
+            var pattern = Pattern.compile(regex);
+            for (String s : inputs()) {
+                assertArrayEquals(javaSpans(pattern.matcher(s)), linear.findSpans(s, false, true), () -> describe(regex, s));
+                assertEquals(pattern.matcher(s).results().count(), linear.count(s, false), () -> describe(regex, s));
+            }
+        }
+    }
+
+    @Test
+    void split() {
+        for (String regex : PATTERNS) {
+            var linear = compile(regex);
+            var pattern = Pattern.compile(regex);
+            for (String s : inputs()) {
+                for (int limit = 0; limit <= 3; limit++) {
+                    int l = limit;
+                    assertArrayEquals(pattern.split(s, limit), linear.split(s, limit), () -> describe(regex, s) + " limit " + l);
+                }
+            }
+        }
+    }
+
+    @Test
+    void replace() {
+        for (String regex : PATTERNS) {
+            var linear = compile(regex);
+            var pattern = Pattern.compile(regex);
+            String replacement = linear.groupCount() > 0 ? "<$0|$1>" : "<$0>";
+            for (String s : inputs()) {
+                assertEquals(pattern.matcher(s).replaceAll(replacement), linear.replaceAll(s, replacement), () -> describe(regex, s));
+                assertEquals(pattern.matcher(s).replaceFirst(replacement), linear.replaceFirst(s, replacement), () -> describe(regex, s));
+            }
+        }
+    }
+
+    @Test
+    void unsupportedSyntax() {
+        assertNull(LinearRegex.tryCompile("(a)\\1"));
+        assertNull(LinearRegex.tryCompile("a(?=b)"));
+        assertNull(LinearRegex.tryCompile("a*+"));
+        assertNull(LinearRegex.tryCompile("(a*)*"));
+    }
+
+    private static LinearRegex compile(String regex) {
+        var linear = LinearRegex.tryCompile(regex);
+        assertNotNull(linear, regex);
+        return linear;
+    }
+
+    private static int[] javaSpans(Matcher matcher) {
+        int stride = (matcher.groupCount() + 1) * 2;
+        var spans = new ArrayList<Integer>();
+        while (matcher.find()) {
+            for (int group = 0; group < stride / 2; group++) {
+                spans.add(matcher.start(group));
+                spans.add(matcher.end(group));
+            }
+        }
+        return spans.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    private static List<String> inputs() {
+        var inputs = new ArrayList<String>();
+        inputs.add("");
+        for (int i = 0; i < inputs.size(); i++) {
+            String s = inputs.get(i);
+            if (s.length() < MAX_LENGTH) {
+                for (char c : ALPHABET.toCharArray()) {
+                    inputs.add(s + c);
+                }
+            }
+        }
+        inputs.addAll(Arrays.asList("a1 b2", "bcd abcd", "x"));
+        return inputs;
+    }
+
+    private static String describe(String regex, String s) {
+        return "/" + regex + "/ on \"" + s + '"';
+    }
+}
@@ -2,11 +2,26 @@ package net.myitian;
 
 import net.fabricmc.api.ModInitializer;
 import net.fabricmc.fabric.api.command.v2.CommandRegistrationCallback;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerLifecycleEvents;
+import net.fabricmc.fabric.api.event.lifecycle.v1.ServerTickEvents;
+import net.fabricmc.loader.api.FabricLoader;
 import net.myitian.command.StringCommand;
+import net.myitian.command.WriteTransaction;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 public class StringUtilities implements ModInitializer {
+    public static final String MOD_ID = "string-utilities";
+    public static final Logger LOGGER = LoggerFactory.getLogger(MOD_ID);
+
     @Override
     public void onInitialize() {
+        StringUtilitiesConfig.load(FabricLoader.getInstance().getConfigDir());
         CommandRegistrationCallback.EVENT.register(StringCommand::register);
+        ServerTickEvents.END_SERVER_TICK.register(server -> WriteTransaction.commitLeftOpen());
+        ServerLifecycleEvents.SERVER_STOPPED.register(server -> {
+            StringBuilderRegistry.clear();
+            WriteTransaction.rollback();
+        });
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,119 @@
+package net.myitian;
+
+import net.myitian.command.StringCommand;
+import net.myitian.command.StringPipeline;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Locale;
+import java.util.Properties;
+
+public class StringUtilitiesConfig {
+    public static final String FILE_NAME = StringUtilities.MOD_ID + ".properties";
+
+    public static int regexCacheCapacity = RegexCache.DEFAULT_CAPACITY;
+    public static int regexTimeoutMillis = RegexBudget.DEFAULT_TIMEOUT_MILLIS;
+    public static int pipelineCacheCapacity = StringPipeline.DEFAULT_CACHE_CAPACITY;
+    public static int trimCharsCacheCapacity = CodePointSet.DEFAULT_CACHE_CAPACITY;
+    public static int parallelThreshold = ParallelStrings.DEFAULT_THRESHOLD;
+    public static int builderMaxChars = StringBuilderRegistry.DEFAULT_MAX_CHARS;
+    public static int builderIdleTimeout = StringBuilderRegistry.DEFAULT_IDLE_TIMEOUT_SECONDS;
+    public static RegexEngine regexEngine = RegexEngine.JAVA;
+    public static int needlesCacheCapacity = AhoCorasick.DEFAULT_CACHE_CAPACITY;
+    public static int templateCacheCapacity = StringTemplate.DEFAULT_CACHE_CAPACITY;
+
+    public static void load(Path configDir) {
+        Path path = configDir.resolve(FILE_NAME);
+        Properties properties = new Properties();
+        if (Files.isRegularFile(path)) {
+            try (Reader reader = Files.newBufferedReader(path)) {
+                properties.load(reader);
+            } catch (IOException e) {
+                StringUtilities.LOGGER.warn("Failed to read {}", path, e);
+            }
+        }
+        regexCacheCapacity = getInt(properties, "regexCacheCapacity", regexCacheCapacity);
+        regexTimeoutMillis = getInt(properties, "regexTimeoutMillis", regexTimeoutMillis);
+        pipelineCacheCapacity = getInt(properties, "pipelineCacheCapacity", pipelineCacheCapacity);
+        trimCharsCacheCapacity = getInt(properties, "trimCharsCacheCapacity", trimCharsCacheCapacity);
+        parallelThreshold = getInt(properties, "parallelThreshold", parallelThreshold);
+        builderMaxChars = getInt(properties, "builderMaxChars", builderMaxChars);
+        builderIdleTimeout = getInt(properties, "builderIdleTimeout", builderIdleTimeout);
+        regexEngine = getEnum(properties, "regexEngine", regexEngine);
+        needlesCacheCapacity = getInt(properties, "needlesCacheCapacity", needlesCacheCapacity);
+        templateCacheCapacity = getInt(properties, "templateCacheCapacity", templateCacheCapacity);
+        if (!properties.stringPropertyNames().containsAll(toProperties().stringPropertyNames())) {
+            save(path);
+        }
+        apply();
+    }
+
+    public static void apply() {
+        RegexCache.setCapacity(regexCacheCapacity);
+        RegexBudget.setTimeoutMillis(regexTimeoutMillis);
+        StringPipeline.setCacheCapacity(pipelineCacheCapacity);
+        CodePointSet.setCacheCapacity(trimCharsCacheCapacity);
+        ParallelStrings.setThreshold(parallelThreshold);
+        StringBuilderRegistry.setMaxChars(builderMaxChars);
+        StringBuilderRegistry.setIdleTimeout(builderIdleTimeout);
+        RegexEngine.setDefault(regexEngine);
+        AhoCorasick.setCacheCapacity(needlesCacheCapacity);
+        StringTemplate.setCacheCapacity(templateCacheCapacity);
+    }
+
+    public static Properties toProperties() {
+        Properties properties = new Properties();
+        properties.setProperty("regexCacheCapacity", Integer.toString(regexCacheCapacity));
+        properties.setProperty("regexTimeoutMillis", Integer.toString(regexTimeoutMillis));
+        properties.setProperty("pipelineCacheCapacity", Integer.toString(pipelineCacheCapacity));
+        properties.setProperty("trimCharsCacheCapacity", Integer.toString(trimCharsCacheCapacity));
+        properties.setProperty("parallelThreshold", Integer.toString(parallelThreshold));
+        properties.setProperty("builderMaxChars", Integer.toString(builderMaxChars));
+        properties.setProperty("builderIdleTimeout", Integer.toString(builderIdleTimeout));
+        properties.setProperty("regexEngine", regexEngine.name().toLowerCase(Locale.ROOT));
+        properties.setProperty("needlesCacheCapacity", Integer.toString(needlesCacheCapacity));
+        properties.setProperty("templateCacheCapacity", Integer.toString(templateCacheCapacity));
+        return properties;
+    }
+
+    public static void save(Path path) {
+        Properties properties = toProperties();
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                properties.store(writer, "String Utilities");
+            }
+        } catch (IOException e) {
+            StringUtilities.LOGGER.warn("Failed to write {}", path, e);
+        }
+    }
+
+    private static int getInt(Properties properties, String key, int defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Integer.parseInt(value.trim());
+        } catch (NumberFormatException e) {
+            StringUtilities.LOGGER.warn("Invalid value for {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+
+    private static <E extends Enum<E>> E getEnum(Properties properties, String key, E defaultValue) {
+        String value = properties.getProperty(key);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return Enum.valueOf(defaultValue.getDeclaringClass(), value.trim().toUpperCase(Locale.ROOT));
+        } catch (IllegalArgumentException e) {
+            StringUtilities.LOGGER.warn("Invalid value for {}: {}", key, value);
+            return defaultValue;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.command.DataCommandObject;
+import net.minecraft.command.EntityDataObject;
+import net.minecraft.command.argument.BlockPosArgumentType;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.command.argument.IdentifierArgumentType;
+import net.minecraft.entity.Entity;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.server.command.DataCommand;
+import net.minecraft.server.command.ServerCommandSource;
+
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Caches the data objects and their NBT read during one {@code /string} execution, so every entity, block
+ * or storage is looked up and serialized at most once, even if the target and several sources refer to it.
+ * <p>
+ * {@link DataCommand.ObjectType#getObject} creates a new wrapper on every call, so objects are deduplicated
+ * by what they refer to after resolving their arguments. Each use of a random selector such as {@code @r} is
+ * resolved on its own, and only shares the snapshot if it picked the same entity.
+ */
+public class NbtSnapshotCache {
+    private final Map<DataCommand.ObjectType, ObjectKey> keys = new IdentityHashMap<>();
+    private final Map<Object, DataCommandObject> objects = new HashMap<>();
+    private final Map<DataCommandObject, NbtCompound> snapshots = new IdentityHashMap<>();
+
+    /**
+     * Sets the arguments which identify the object of the type in this execution.
+     *
+     * @param typeName     the object type literal, e.g. {@code entity}
+     * @param argumentName the name of the argument the object type added after it
+     */
+    public void setKey(DataCommand.ObjectType type, String typeName, String argumentName) {
+        keys.put(type, new ObjectKey(typeName, argumentName));
+    }
+
+    /**
+     * Objects in an open {@link WriteTransaction} are shared with it, so their NBT includes its pending writes.
+     */
+    public DataCommandObject getObject(DataCommand.ObjectType type, CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        ObjectKey key = keys.get(type);
+        if (key == null) {
+            return type.getObject(context);
+        }
+        var resolved = Resolved.resolve(type, key.typeName, key.argumentName, context);
+        if (resolved.identity == null) {
+            return resolved.object;
+        }
+        return track(resolved.object, resolved.identity);
+    }
+
+    public NbtCompound getNbt(DataCommandObject object) throws CommandSyntaxException {
+        NbtCompound nbt = snapshots.get(object);
+        if (nbt == null) {
+            var transaction = WriteTransaction.getCurrent();
+            if (transaction != null) {
+                nbt = transaction.getNbt(object);
+            }
+            if (nbt == null) {
+                nbt = object.getNbt();
+            }
+            snapshots.put(object, nbt);
+        }
+        return nbt;
+    }
+
+    public NbtCompound getNbt(DataCommand.ObjectType type, CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+        return getNbt(getObject(type, context));
+    }
+
+    /**
+     * Reads an entity matched by a multi-entity selector, which has no argument text to identify it.
+     */
+    public NbtCompound getNbt(Entity entity) throws CommandSyntaxException {
+        return getNbt(track(new EntityDataObject(entity), entity));
+    }
+
+    /**
+     * @param identity the entity, the block position in its world, or the storage id the object refers to
+     * @return the object already seen with the same identity, or the given one after adding it
+     */
+    private DataCommandObject track(DataCommandObject object, Object identity) {
+        DataCommandObject known = objects.get(identity);
+        if (known == null) {
+            var transaction = WriteTransaction.getCurrent();
+            known = transaction == null ? object : transaction.track(object, identity);
+            objects.put(identity, known);
+        }
+        return known;
+    }
+
+    private record ObjectKey(String typeName, String argumentName) {
+    }
+
+    /**
+     * @param identity the entity, the block position in its world, or the storage id the object refers to
+     */
+    private record Resolved(DataCommandObject object, Object identity) {
+        /**
+         * Resolves the arguments added by {@link DataCommand.ObjectType#addArgumentsToBuilder} for the given object
+         * type literal. An entity selector is resolved once for both the object and its identity, so a random one
+         * such as {@code @r} cannot pick a different entity for each.
+         */
+        private static Resolved resolve(
+                DataCommand.ObjectType type,
+                String typeName,
+                String argumentName,
+                CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
+            return switch (typeName) {
+                case "entity" -> {
+                    Entity entity = EntityArgumentType.getEntity(context, argumentName);
+                    yield new Resolved(new EntityDataObject(entity), entity);
+                }
+                case "block" -> new Resolved(type.getObject(context),
+                        List.of(context.getSource().getWorld(), BlockPosArgumentType.getLoadedBlockPos(context, argumentName + "Pos")));
+                case "storage" -> new Resolved(type.getObject(context), IdentifierArgumentType.getIdentifier(context, argumentName));
+                default -> new Resolved(type.getObject(context), null);
+            };
+        }
+    }
+}
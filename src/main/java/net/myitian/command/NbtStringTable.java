@@ -0,0 +1,66 @@
+package net.myitian.command;
+
+import net.minecraft.nbt.NbtString;
+import net.myitian.LruCache;
+
+/**
+ * Shared {@link NbtString} instances of single chars and code points, so that splitting text into chars does not
+ * allocate a string and an {@link NbtString} for each of them. {@link NbtString} is immutable, so one instance can
+ * be put in any number of lists and compounds.
+ * <p>
+ * ASCII chars are created up front, other chars of the BMP on first use. Supplementary code points are kept in a
+ * bounded cache instead, since there are too many of them to keep all.
+ */
+public final class NbtStringTable {
+    public static final int SUPPLEMENTARY_CACHE_CAPACITY = 1024;
+
+    /**
+     * Filled racily, which is harmless since {@link NbtString} only has a final field
+     */
+    private static final NbtString[] BMP = new NbtString[Character.MAX_VALUE + 1];
+    private static final LruCache<Integer, NbtString> SUPPLEMENTARY = new LruCache<>(SUPPLEMENTARY_CACHE_CAPACITY);
+
+    static {
+        for (char c = 0; c < 128; c++) {
+            BMP[c] = NbtString.of(String.valueOf(c));
+        }
+    }
+
+    private NbtStringTable() {
+    }
+
+    public static NbtString of(char c) {
+        NbtString nbt = BMP[c];
+        if (nbt == null) {
+            nbt = NbtString.of(String.valueOf(c));
+            BMP[c] = nbt;
+        }
+        return nbt;
+    }
+
+    public static NbtString ofCodePoint(int codePoint) {
+        if (Character.isBmpCodePoint(codePoint)) {
+            return of((char) codePoint);
+        }
+        NbtString nbt = SUPPLEMENTARY.get(codePoint);
+        if (nbt == null) {
+            nbt = NbtString.of(Character.toString(codePoint));
+            SUPPLEMENTARY.put(codePoint, nbt);
+        }
+        return nbt;
+    }
+
+    /**
+     * @return the shared instance if the string is a single char or code point, otherwise a new one
+     */
+    public static NbtString of(String s) {
+        int length = s.length();
+        if (length == 1) {
+            return of(s.charAt(0));
+        }
+        if (length == 2 && Character.isSurrogatePair(s.charAt(0), s.charAt(1))) {
+            return ofCodePoint(s.codePointAt(0));
+        }
+        return NbtString.of(s);
+    }
+}
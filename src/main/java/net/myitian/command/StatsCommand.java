@@ -0,0 +1,102 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import net.fabricmc.loader.api.FabricLoader;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+import net.myitian.MethodStats;
+import net.myitian.StringUtilities;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+import java.util.List;
+import java.util.Locale;
+
+import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
+import static net.minecraft.server.command.CommandManager.literal;
+
+/**
+ * {@code /string stats [reset|dump [csv|json]]}, showing the {@link MethodStats} of the {@code /string} methods.
+ */
+public class StatsCommand {
+    public static final int MAX_SHOWN = 10;
+    public static final DynamicCommandExceptionType DUMP_FAILED_EXCEPTION = // Failed to dump the method stats: %s
+            new DynamicCommandExceptionType(message -> Text.translatable("commands.string-utilities.string.stats.dump_failed", message));
+
+    private static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss", Locale.ROOT);
+
+    public static LiteralArgumentBuilder<ServerCommandSource> build() {
+        return literal("stats")
+                .executes(StatsCommand::show)
+                .then(literal("reset")
+                        .executes(ctx -> {
+                            MethodStats.resetAll();
+                            ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.stats.reset"), true);
+                            return SINGLE_SUCCESS;
+                        }))
+                .then(literal("dump")
+                        .executes(ctx -> dump(ctx, false))
+                        .then(literal("csv")
+                                .executes(ctx -> dump(ctx, false)))
+                        .then(literal("json")
+                                .executes(ctx -> dump(ctx, true))));
+    }
+
+    private static int show(CommandContext<ServerCommandSource> ctx) {
+        List<MethodStats> called = MethodStats.getCalled();
+        long invocations = 0;
+        long totalNanos = 0;
+        for (MethodStats stats : called) {
+            invocations += stats.getInvocations();
+            totalNanos += stats.getTotalNanos();
+        }
+        long finalInvocations = invocations;
+        String totalMillis = toMillis(totalNanos);
+        ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.stats",
+                called.size(), finalInvocations, totalMillis), false);
+        for (MethodStats stats : called.subList(0, Math.min(called.size(), MAX_SHOWN))) {
+            ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.stats.method",
+                    stats.getName(),
+                    stats.getInvocations(),
+                    stats.getExceptions(),
+                    toMillis(stats.getTotalNanos()),
+                    toMillis(stats.getMaxNanos()),
+                    stats.getInputChars(),
+                    stats.getOutputChars()), false);
+        }
+        return called.size();
+    }
+
+    private static int dump(CommandContext<ServerCommandSource> ctx, boolean json) throws CommandSyntaxException {
+        List<MethodStats> called = MethodStats.getCalled();
+        String fileName = "stats-" + LocalDateTime.now().format(FILE_TIME_FORMAT) + (json ? ".json" : ".csv");
+        Path path = FabricLoader.getInstance().getGameDir().resolve(StringUtilities.MOD_ID).resolve(fileName);
+        try {
+            Files.createDirectories(path.getParent());
+            try (Writer writer = Files.newBufferedWriter(path)) {
+                if (json) {
+                    MethodStats.writeJson(writer, called);
+                } else {
+                    MethodStats.writeCsv(writer, called);
+                }
+            }
+        } catch (IOException e) {
+            StringUtilities.LOGGER.warn("Failed to write {}", path, e);
+            throw DUMP_FAILED_EXCEPTION.create(e.getMessage());
+        }
+        String shownPath = path.toString();
+        ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.stats.dumped", shownPath), true);
+        return called.size();
+    }
+
+    private static String toMillis(long nanos) {
+        return String.format(Locale.ROOT, "%.3f", nanos / 1e6);
+    }
+}
@@ -1,28 +1,45 @@
 package net.myitian.command;
 
 import com.mojang.brigadier.CommandDispatcher;
-import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.arguments.IntegerArgumentType;
+import com.mojang.brigadier.arguments.StringArgumentType;
 import com.mojang.brigadier.builder.LiteralArgumentBuilder;
 import com.mojang.brigadier.context.CommandContext;
 import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.Dynamic2CommandExceptionType;
+import com.mojang.brigadier.exceptions.Dynamic3CommandExceptionType;
 import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
 import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
 import net.minecraft.command.CommandRegistryAccess;
+import net.minecraft.command.argument.EntityArgumentType;
 import net.minecraft.command.argument.NbtElementArgumentType;
 import net.minecraft.command.argument.NbtPathArgumentType;
+import net.minecraft.command.argument.ScoreHolderArgumentType;
+import net.minecraft.command.argument.ScoreboardObjectiveArgumentType;
 import net.minecraft.nbt.*;
+import net.minecraft.entity.Entity;
 import net.minecraft.server.command.CommandManager;
 import net.minecraft.server.command.DataCommand;
 import net.minecraft.server.command.ServerCommandSource;
 import net.minecraft.text.Text;
 import net.minecraft.util.Pair;
+import net.myitian.AhoCorasick;
+import net.myitian.CodePointSet;
+import net.myitian.IntegerOutOfRangeException;
+import net.myitian.ParallelStrings;
+import net.myitian.RegexBudget;
+import net.myitian.RegexCache;
+import net.myitian.StringBuilderRegistry;
 import net.myitian.StringExtension;
+import net.myitian.StringTemplate;
+import net.myitian.StringTooLongException;
+import net.myitian.StringUtilities;
 
-import java.util.HashSet;
-import java.util.Set;
-import java.util.function.BiFunction;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
 import java.util.regex.MatchResult;
-import java.util.regex.Pattern;
 
 import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
 import static net.minecraft.server.command.CommandManager.argument;
@@ -41,119 +58,169 @@ public class StringCommand {
             new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.unexpected_type", name, NbtIntArray.TYPE.getCrashReportName()));
     public static final DynamicCommandExceptionType EXPECTED_INT_EXCEPTION = // Invalid argument type: %s, expected Int
             new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.unexpected_type", name, NbtInt.TYPE.getCrashReportName()));
+    public static final Dynamic2CommandExceptionType INTEGER_TOO_LOW =
+            new Dynamic2CommandExceptionType((found, min) -> Text.translatable("argument.integer.low", min, found));
+    public static final Dynamic2CommandExceptionType INTEGER_TOO_HIGH =
+            new Dynamic2CommandExceptionType((found, max) -> Text.translatable("argument.integer.big", max, found));
+    public static final Dynamic3CommandExceptionType INTEGER_NOT_IN_RANGE_2 =
+            new Dynamic3CommandExceptionType((found, range0, range1) -> Text.translatable("argument.string-utilities.integer.not_in_range", found, range0, range1));
+    public static final DynamicCommandExceptionType REGEX_TIMEOUT_EXCEPTION = // Regex evaluation ran over its budget of %s ms
+            new DynamicCommandExceptionType(timeout -> Text.translatable("commands.string-utilities.string.regex_timeout", timeout));
+    public static final DynamicCommandExceptionType UNKNOWN_BUILDER_EXCEPTION = // Unknown string builder: %s
+            new DynamicCommandExceptionType(id -> Text.translatable("commands.string-utilities.string.builder.unknown", id));
+    public static final DynamicCommandExceptionType BUILDER_CAPACITY_EXCEEDED_EXCEPTION = // String builders cannot hold more than %s chars
+            new DynamicCommandExceptionType(max -> Text.translatable("commands.string-utilities.string.builder.capacity_exceeded", max));
+    public static final Dynamic2CommandExceptionType STRING_TOO_LONG_EXCEPTION = // String of %s chars is longer than %s chars
+            new Dynamic2CommandExceptionType((length, max) -> Text.translatable("commands.string-utilities.string.too_long", length, max));
+    public static final Dynamic2CommandExceptionType REPLACEMENT_COUNT_MISMATCH_EXCEPTION = // Expected %s replacements, got %s
+            new Dynamic2CommandExceptionType((expected, found) -> Text.translatable("commands.string-utilities.string.replacement_count_mismatch", expected, found));
+    public static final DynamicCommandExceptionType EXPECTED_LIST_OR_COMPOUND_EXCEPTION = // Invalid argument type: %s, expected List/Compound
+            new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.unexpected_type", name,
+                    NbtList.TYPE.getCrashReportName() + "/" + NbtCompound.TYPE.getCrashReportName()));
+    public static final DynamicCommandExceptionType INVALID_TEMPLATE_EXCEPTION = // Invalid template: %s
+            new DynamicCommandExceptionType(message -> Text.translatable("commands.string-utilities.string.invalid_template", message));
+    public static final DynamicCommandExceptionType MISSING_TEMPLATE_ARGUMENT_EXCEPTION = // No argument for placeholder {%s}
+            new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.missing_template_argument", name));
+    public static final Dynamic2CommandExceptionType SCORE_NOT_SET_EXCEPTION =
+            new Dynamic2CommandExceptionType((objective, holder) -> Text.translatable("commands.scoreboard.players.get.null", objective, holder));
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher, CommandRegistryAccess registryAccess, CommandManager.RegistrationEnvironment environment) {
         register(dispatcher);
     }
 
     public static void register(CommandDispatcher<ServerCommandSource> dispatcher) {
+        long startTime = System.nanoTime();
+        var tree = new StringCommandTree();
         LiteralArgumentBuilder<ServerCommandSource> stringCommand = literal("string")
                 .requires(source -> source.hasPermissionLevel(2))
-                .then(addOneInZeroOutArgument("isBlank", (ctx, scc) -> {
+                .then(literal("regexCache")
+                        .executes(ctx -> {
+                            ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.regex_cache.stats",
+                                    RegexCache.size(),
+                                    RegexCache.getCapacity(),
+                                    RegexCache.getHits(),
+                                    RegexCache.getMisses(),
+                                    RegexCache.getEvictions(),
+                                    RegexCache.getLinearSize(),
+                                    RegexCache.getCapacity(),
+                                    RegexCache.getLinearHits(),
+                                    RegexCache.getLinearMisses(),
+                                    RegexCache.getLinearEvictions(),
+                                    RegexBudget.getViolations()), false);
+                            return RegexCache.size();
+                        })
+                        .then(literal("clear")
+                                .executes(ctx -> {
+                                    RegexCache.clear();
+                                    RegexBudget.resetViolations();
+                                    ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.regex_cache.cleared"), true);
+                                    return SINGLE_SUCCESS;
+                                }))
+                        .then(literal("capacity")
+                                .then(argument("capacity", IntegerArgumentType.integer(0))
+                                        .executes(ctx -> {
+                                            int capacity = IntegerArgumentType.getInteger(ctx, "capacity");
+                                            RegexCache.setCapacity(capacity);
+                                            ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.regex_cache.capacity", capacity), true);
+                                            return capacity;
+                                        }))))
+                .then(StatsCommand.build())
+                .then(TransactionCommand.buildBegin())
+                .then(TransactionCommand.buildCommit())
+                .then(TransactionCommand.buildRollback())
+                .then(literal("builder")
+                        .executes(ctx -> {
+                            ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.builder.stats",
+                                    StringBuilderRegistry.size(),
+                                    StringBuilderRegistry.getTotalChars(),
+                                    StringBuilderRegistry.getMaxChars()), false);
+                            return StringBuilderRegistry.size();
+                        })
+                        .then(literal("new")
+                                .then(argument("id", StringArgumentType.word())
+                                        .executes(ctx -> {
+                                            StringBuilderRegistry.create(StringArgumentType.getString(ctx, "id"));
+                                            return SINGLE_SUCCESS;
+                                        })))
+                        .then(tree.addMethod("append", argument("id", StringArgumentType.word()), false, 1, 1,
+                                (ctx, scc) -> {
+                                    checkArgumentCount(scc.sources, 1);
+                                    var builder = getBuilder(ctx);
+                                    return builder.append(getNbtValueAsString(scc.sources[0]));
+                                }))
+                        .then(tree.addMethod("insert", argument("id", StringArgumentType.word()), false, 2, 2,
+                                (ctx, scc) -> {
+                                    checkArgumentCount(scc.sources, 2);
+                                    var builder = getBuilder(ctx);
+                                    int offset = getNbtValueAsInt(scc.sources[0]);
+                                    return builder.insert(offset, getNbtValueAsString(scc.sources[1]));
+                                }))
+                        .then(tree.addMethod("delete", argument("id", StringArgumentType.word()), false, 1, 2,
+                                (ctx, scc) -> {
+                                    checkArgumentCount(scc.sources, 1);
+                                    var builder = getBuilder(ctx);
+                                    int begin = getNbtValueAsInt(scc.sources[0]);
+                                    if (scc.sources.length > 1) {
+                                        return builder.delete(begin, getNbtValueAsInt(scc.sources[1]));
+                                    }
+                                    return builder.delete(begin);
+                                }))
+                        .then(literal("length")
+                                .then(argument("id", StringArgumentType.word())
+                                        .executes(ctx -> getBuilder(ctx).length())))
+                        .then(tree.addMethod("build", argument("id", StringArgumentType.word()), true, 0, 0,
+                                (ctx, scc) -> {
+                                    String result = getBuilder(ctx).toString();
+                                    setTarget(ctx, scc, createNbtString(result));
+                                    return result.length();
+                                }))
+                        .then(literal("free")
+                                .then(argument("id", StringArgumentType.word())
+                                        .executes(ctx -> toInt(StringBuilderRegistry.free(StringArgumentType.getString(ctx, "id")))))))
+                .then(tree.addPipeArgument("pipe", StringPipeline.SEPARATOR, "methods", (ctx, element) -> {
+                    var pipeline = StringPipeline.get(StringArgumentType.getString(ctx, "methods"));
+                    return pipeline.apply(element.asString());
+                }))
+                .then(tree.addOneInZeroOutArgument("isBlank", (ctx, scc) -> {
                     checkArgumentCount(scc.sources, 1);
                     String src = getNbtValueAsString(scc.sources[0]);
                     return toInt(StringExtension.isBlank(src));
                 }))
-                .then(addOneInZeroOutArgument("isEmpty", (ctx, scc) -> {
+                .then(tree.addOneInZeroOutArgument("isEmpty", (ctx, scc) -> {
                     checkArgumentCount(scc.sources, 1);
                     String src = getNbtValueAsString(scc.sources[0]);
                     return toInt(src.isEmpty());
                 }))
-                .then(addOneInZeroOutArgument("length", (ctx, scc) -> {
+                .then(tree.addOneInZeroOutArgument("length", (ctx, scc) -> {
                     checkArgumentCount(scc.sources, 1);
                     String src = getNbtValueAsString(scc.sources[0]);
                     return src.length();
                 }))
-                .then(addOneInOneOutArgument("toString", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(src));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("escape", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    StringBuilder stringBuilder = new StringBuilder(" ");
-                    for (int i = 0; i < src.length(); ++i) {
-                        char d = src.charAt(i);
-                        if (d == '\\' || d == '"') {
-                            stringBuilder.append('\\');
-                        }
-                        stringBuilder.append(d);
-                    }
-                    setTarget(ctx, scc, createNbtString(stringBuilder.toString()));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("escapeNbt", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(NbtString.escape(src)));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("escapeRegex", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(StringExtension.escapeRegex(src)));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("toLowerCase", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(src.toLowerCase()));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("toUpperCase", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(src.toUpperCase()));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("strip", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(StringExtension.strip(src)));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("stripLeading", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(StringExtension.stripLeading(src)));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("stripTrailing", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    setTarget(ctx, scc, createNbtString(StringExtension.stripTrailing(src)));
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("toCharArray", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    NbtList list = new NbtList();
-                    for (char c : src.toCharArray()) {
-                        list.add(createNbtString(Character.toString(c)));
-                    }
-                    setTarget(ctx, scc, list);
-                    return SINGLE_SUCCESS;
-                }))
-                .then(addOneInOneOutArgument("toCodePointStrings", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    NbtList list = new NbtList();
-                    list.addAll(src.codePoints().mapToObj(Character::toString).map(NbtString::of).toList());
-                    setTarget(ctx, scc, list);
-                    return list.size();
-                }))
-                .then(addOneInOneOutArgument("toCodePoints", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    String src = getNbtValueAsString(scc.sources[0]);
-                    NbtIntArray arr = new NbtIntArray(src.codePoints().toArray());
-                    setTarget(ctx, scc, arr);
-                    return arr.size();
-                }))
-                .then(addOneInOneOutArgument("fromCodePoints", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    var element = getNbtElement(scc.sources[0]);
+                .then(tree.addOneInOneOutMapArgument("toString",
+                        (ctx, element) -> createNbtString(element.asString())))
+                .then(tree.addOneInOneOutMapArgument("escape",
+                        (ctx, element) -> createNbtString(StringExtension.escape(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("escapeNbt",
+                        (ctx, element) -> createNbtString(NbtString.escape(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("escapeRegex",
+                        (ctx, element) -> createNbtString(StringExtension.escapeRegex(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("toLowerCase",
+                        (ctx, element) -> createNbtString(element.asString().toLowerCase())))
+                .then(tree.addOneInOneOutMapArgument("toUpperCase",
+                        (ctx, element) -> createNbtString(element.asString().toUpperCase())))
+                .then(tree.addOneInOneOutMapArgument("strip",
+                        (ctx, element) -> createNbtString(StringExtension.strip(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("stripLeading",
+                        (ctx, element) -> createNbtString(StringExtension.stripLeading(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("stripTrailing",
+                        (ctx, element) -> createNbtString(StringExtension.stripTrailing(element.asString()))))
+                .then(tree.addOneInOneOutMapArgument("toCharArray",
+                        (ctx, element) -> createCharList(element.asString())))
+                .then(tree.addOneInOneOutMapArgument("toCodePointStrings",
+                        (ctx, element) -> createCodePointStringList(element.asString())))
+                .then(tree.addOneInOneOutMapArgument("toCodePoints",
+                        (ctx, element) -> createCodePointArray(element.asString())))
+                .then(tree.addOneInOneOutMapArgument("fromCodePoints", (ctx, element) -> {
                     String result;
                     if (!(element instanceof AbstractNbtList<?> list)) {
                         throw EXPECTED_LIST_EXCEPTION.create(element);
@@ -161,110 +228,70 @@ public class StringCommand {
                         result = "";
                     } else {
                         int size = list.size();
-                        StringBuilder sb = new StringBuilder();
                         if (!(list.get(0) instanceof AbstractNbtNumber)) {
                             throw EXPECTED_INT_ARRAY_EXCEPTION.create(element.getNbtType().getCrashReportName());
                         }
+                        int[] codePoints = new int[size];
                         for (int i = 0; i < size; i++) {
-                            sb.appendCodePoint(((AbstractNbtNumber) list.get(i)).intValue());
+                            codePoints[i] = ((AbstractNbtNumber) list.get(i)).intValue();
                         }
-                        result = sb.toString();
+                        result = ParallelStrings.fromCodePoints(codePoints);
                     }
-                    setTarget(ctx, scc, createNbtString(result));
-                    return SINGLE_SUCCESS;
+                    return createNbtString(result);
                 }))
-                .then(addOneInOneOutArgument("concat", (ctx, scc) -> {
-                    checkArgumentCount(scc.sources, 1);
-                    var element = getNbtElement(scc.sources[0]);
+                .then(tree.addOneInOneOutMapArgument("concat", (ctx, element) -> {
                     if (!(element instanceof AbstractNbtList<?> list)) {
                         throw EXPECTED_LIST_EXCEPTION.create(element);
                     }
-                    String[] strings = new String[list.size()];
-                    int len = 0;
-                    for (int i = 0; i < strings.length; i++) {
-                        len += (strings[i] = list.get(i).asString()).length();
-                    }
-                    var sb = new StringBuilder(len);
-                    for (String string : strings) {
-                        sb.append(string);
-                    }
-                    setTarget(ctx, scc, createNbtString(sb.toString()));
-                    return SINGLE_SUCCESS;
+                    return createNbtString(ParallelStrings.concat(toStringArray(list)));
                 }))
-                .then(addOneInOneOptionalInOneOutArgument("trim",
-                        "sourcePath",
-                        "value",
-                        "trimCharsSourcePath",
-                        "trimCharsValue",
+                .then(tree.addOneInOneOptionalInOneOutArgument("trim",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 1);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            Set<Character> trimChars = createTrimCharsSet(scc);
+                            CodePointSet trimChars = createTrimCharsSet(scc);
                             setTarget(ctx, scc, createNbtString(StringExtension.trim(src, trimChars)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addOneInOneOptionalInOneOutArgument("trimStart",
-                        "sourcePath",
-                        "value",
-                        "trimCharsSourcePath",
-                        "trimCharsValue",
+                .then(tree.addOneInOneOptionalInOneOutArgument("trimStart",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 1);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            Set<Character> trimChars = createTrimCharsSet(scc);
+                            CodePointSet trimChars = createTrimCharsSet(scc);
                             setTarget(ctx, scc, createNbtString(StringExtension.trimStart(src, trimChars)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addOneInOneOptionalInOneOutArgument("trimEnd",
-                        "sourcePath",
-                        "value",
-                        "trimCharsSourcePath",
-                        "trimCharsValue",
+                .then(tree.addOneInOneOptionalInOneOutArgument("trimEnd",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 1);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            Set<Character> trimChars = createTrimCharsSet(scc);
+                            CodePointSet trimChars = createTrimCharsSet(scc);
                             setTarget(ctx, scc, createNbtString(StringExtension.trimEnd(src, trimChars)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOutArgument("at",
-                        "sourcePath",
-                        "value",
-                        "indexSourcePath",
-                        "indexValue",
+                .then(tree.addTwoInOneOutArgument("at",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            int i = StringExtension.convertAndCheckIndex(getNbtValueAsInt(scc.sources[1]), src);
-                            setTarget(ctx, scc, createNbtString(Character.toString(src.charAt(i))));
+                            int i = getNbtValueAsInt(scc.sources[1]);
+                            setTarget(ctx, scc, createNbtString(StringExtension.charAt(src, i)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOutArgument("repeat",
-                        "sourcePath",
-                        "value",
-                        "countSourcePath",
-                        "countValue",
+                .then(tree.addTwoInOneOutArgument("repeat",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var r = getNbtValueAsInt(scc.sources[1]);
-                            StringExtension.checkNotBelowZero(r);
                             setTarget(ctx, scc, createNbtString(StringExtension.repeat(src, r)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOutArgument("matchesAll",
-                        "sourcePath",
-                        "value",
-                        "patternSourcePath",
-                        "patternValue",
+                .then(tree.addTwoInOneOutArgument("matchesAll",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var p = getNbtValueAsString(scc.sources[1]);
-                            var regex = Pattern.compile(p);
-                            var matcher = regex.matcher(src);
                             var list = new NbtList();
-                            for (MatchResult r : StringExtension.matchesAll(matcher)) {
+                            for (MatchResult r : StringExtension.matchesAll(src, p)) {
                                 var nbt = new NbtCompound();
                                 nbt.putInt("start", r.start());
                                 nbt.putInt("end", r.end());
@@ -273,19 +300,13 @@ public class StringCommand {
                             setTarget(ctx, scc, list);
                             return list.size();
                         }))
-                .then(addTwoInOneOutArgument("matchesAllFully",
-                        "sourcePath",
-                        "value",
-                        "countSourcePath",
-                        "countValue",
+                .then(tree.addTwoInOneOutArgument("matchesAllFully",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var p = getNbtValueAsString(scc.sources[1]);
-                            var regex = Pattern.compile(p);
-                            var matcher = regex.matcher(src);
                             var list = new NbtList();
-                            for (MatchResult r : StringExtension.matchesAllFully(matcher)) {
+                            for (MatchResult r : StringExtension.matchesAllFully(src, p)) {
                                 var nbt = new NbtCompound();
                                 nbt.putInt("start", r.start());
                                 nbt.putInt("end", r.end());
@@ -294,138 +315,140 @@ public class StringCommand {
                             setTarget(ctx, scc, list);
                             return list.size();
                         }))
-                .then(addTwoInOneOutArgument("join",
-                        "delimiterSourcePath",
-                        "delimiterValue",
-                        "elementsSourcePath",
-                        "elementsValue",
+                .then(tree.addTwoInOneOptionalInOneOutArgument("matchesAllSpans",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var p = getNbtValueAsString(scc.sources[1]);
+                            boolean groups = scc.sources.length > 2 && getNbtValueAsInt(scc.sources[2]) != 0;
+                            var spans = StringExtension.matchesAllSpans(src, p, groups);
+                            setTarget(ctx, scc, new NbtIntArray(spans));
+                            return countSpans(spans, p, groups);
+                        }))
+                .then(tree.addTwoInOneOptionalInOneOutArgument("matchesAllFullySpans",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var p = getNbtValueAsString(scc.sources[1]);
+                            boolean groups = scc.sources.length > 2 && getNbtValueAsInt(scc.sources[2]) != 0;
+                            var spans = StringExtension.matchesAllFullySpans(src, p, groups);
+                            setTarget(ctx, scc, new NbtIntArray(spans));
+                            return countSpans(spans, p, groups);
+                        }))
+                .then(tree.addTwoInOneOutArgument("join",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 1);
                             var delimiter = getNbtValueAsString(scc.sources[0]);
                             var element = getNbtElement(scc.sources[1]);
                             String result;
                             if (element instanceof NbtString str) {
-                                char[] chars = str.asString().toCharArray();
-                                var sb = new StringBuilder((chars.length - 1) * delimiter.length() + 1);
-                                sb.append(chars[0]);
-                                for (int i = 1; i < chars.length; ) {
-                                    sb.append(delimiter).append(chars[i++]);
-                                }
-                                result = sb.toString();
+                                result = StringExtension.joinChars(delimiter, str.asString());
                             } else if (element instanceof AbstractNbtList<?> list) {
-                                String[] strings = new String[list.size()];
-                                int len = 0;
-                                for (int i = 0; i < strings.length; i++) {
-                                    len += (strings[i] = list.get(i).asString()).length();
-                                }
-                                len += (strings.length - 1) * delimiter.length();
-                                var sb = new StringBuilder(len);
-                                sb.append(strings[0]);
-                                for (int i = 1; i < strings.length; ) {
-                                    sb.append(delimiter).append(strings[i++]);
-                                }
-                                result = sb.toString();
+                                result = ParallelStrings.join(delimiter, toStringArray(list));
                             } else {
                                 throw EXPECTED_LIST_EXCEPTION.create(element);
                             }
                             setTarget(ctx, scc, createNbtString(result));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOptionalInOneOutArgument("concat2",
-                        "sourcePath0",
-                        "value0",
-                        "sourcePath1",
-                        "value1",
-                        "sourcePath2",
-                        "value2",
+                .then(tree.addMethod("concat2", true, 2, StringCommandTree.MAX_SOURCES,
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
-                            var s0 = getNbtValueAsString(scc.sources[0]);
-                            var s1 = getNbtValueAsString(scc.sources[1]);
-                            var result = s0 + s1;
-                            if (scc.sources.length > 2) {
-                                result += getNbtValueAsString(scc.sources[2]);
+                            var strings = new String[scc.sources.length];
+                            for (int i = 0; i < strings.length; i++) {
+                                strings[i] = getNbtValueAsString(scc.sources[i]);
+                            }
+                            setTarget(ctx, scc, createNbtString(StringExtension.concat(strings)));
+                            return SINGLE_SUCCESS;
+                        }))
+                .then(tree.addTwoInOneOutArgument("format",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var template = getStringTemplate(getNbtValueAsString(scc.sources[0]));
+                            var arguments = getNbtElement(scc.sources[1]);
+                            String result;
+                            if (arguments instanceof NbtCompound compound) {
+                                result = template.format((index, name) -> {
+                                    var argument = compound.get(name);
+                                    if (argument == null) {
+                                        throw MISSING_TEMPLATE_ARGUMENT_EXCEPTION.create(name);
+                                    }
+                                    return argument.asString();
+                                });
+                            } else if (arguments instanceof AbstractNbtList<?> list) {
+                                result = template.format((index, name) -> {
+                                    if (index < 0 || index >= list.size()) {
+                                        throw MISSING_TEMPLATE_ARGUMENT_EXCEPTION.create(name);
+                                    }
+                                    return list.get(index).asString();
+                                });
+                            } else {
+                                throw EXPECTED_LIST_OR_COMPOUND_EXCEPTION.create(arguments.getNbtType().getCrashReportName());
                             }
                             setTarget(ctx, scc, createNbtString(result));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOptionalInOneOutArgument("substring",
-                        "sourcePath",
-                        "value",
-                        "beginIndexSourcePath",
-                        "beginIndexValue",
-                        "endIndexSourcePath",
-                        "endIndexValue",
+                .then(tree.addTwoInOneOptionalInOneOutArgument("substring",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            int begin = StringExtension.convertAndCheckIndexWider(getNbtValueAsInt(scc.sources[1]), src);
+                            int begin = getNbtValueAsInt(scc.sources[1]);
                             String result;
                             if (scc.sources.length > 2) {
-                                int end = getNbtValueAsInt(scc.sources[2]);
-                                StringExtension.checkInt(end, begin - src.length(), -1, begin, src.length());
-                                result = src.substring(begin, StringExtension.convertIndex(end, src));
+                                result = StringExtension.substring(src, begin, getNbtValueAsInt(scc.sources[2]));
                             } else {
-                                result = src.substring(begin);
+                                result = StringExtension.substring(src, begin);
                             }
                             setTarget(ctx, scc, createNbtString(result));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOptionalInOneOutArgument("substring2",
-                        "sourcePath",
-                        "value",
-                        "beginIndexSourcePath",
-                        "beginIndexValue",
-                        "lengthSourcePath",
-                        "lengthValue",
+                .then(tree.addTwoInOneOptionalInOneOutArgument("substring2",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
-                            int begin = StringExtension.convertAndCheckIndexWider(getNbtValueAsInt(scc.sources[1]), src);
+                            int begin = getNbtValueAsInt(scc.sources[1]);
                             String result;
                             if (scc.sources.length > 2) {
-                                int length = getNbtValueAsInt(scc.sources[2]);
-                                StringExtension.checkInt(length, 0, src.length() - begin);
-                                result = src.substring(begin, begin + length);
+                                result = StringExtension.substring2(src, begin, getNbtValueAsInt(scc.sources[2]));
                             } else {
-                                result = src.substring(begin);
+                                result = StringExtension.substring(src, begin);
                             }
                             setTarget(ctx, scc, createNbtString(result));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addTwoInOneOptionalInOneOutArgument("split",
-                        "sourcePath",
-                        "value",
-                        "separatorRegexSourcePath",
-                        "separatorRegexValue",
-                        "limitSourcePath",
-                        "limitValue",
+                .then(tree.addTwoInOneOptionalInOneOutArgument("split",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var sep = getNbtValueAsString(scc.sources[1]);
-                            String[] result;
+                            int limit = 0;
+                            boolean literal = false;
+                            boolean skipEmpty = false;
                             if (scc.sources.length > 2) {
-                                int i = getNbtValueAsInt(scc.sources[2]);
-                                StringExtension.checkNotBelowZero(i);
-                                result = src.split(sep, i);
-                            } else {
-                                result = src.split(sep);
-                            }
-                            NbtList list = new NbtList();
-                            for (String s : result) {
-                                list.add(createNbtString(s));
+                                // Either the limit, or a compound of options
+                                if (getNbtElement(scc.sources[2]) instanceof NbtCompound options) {
+                                    limit = options.getInt("maxPieces");
+                                    literal = options.getBoolean("literal");
+                                    skipEmpty = options.getBoolean("skipEmpty");
+                                } else {
+                                    limit = getNbtValueAsInt(scc.sources[2]);
+                                }
                             }
+                            NbtList list = createSplitList(src, sep, limit, literal, skipEmpty);
                             setTarget(ctx, scc, list);
-                            return result.length;
+                            return list.size();
+                        }))
+                .then(tree.addTwoInOneOptionalInOneOutArgument("splitLiteral",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var sep = getNbtValueAsString(scc.sources[1]);
+                            int limit = scc.sources.length > 2 ? getNbtValueAsInt(scc.sources[2]) : 0;
+                            NbtList list = createSplitList(src, sep, limit, true, false);
+                            setTarget(ctx, scc, list);
+                            return list.size();
                         }))
-                .then(addTwoInOneOptionalInZeroOutArgument("indexOf",
-                        "sourcePath",
-                        "value",
-                        "substringSourcePath",
-                        "substringValue",
-                        "fromIndexSourcePath",
-                        "fromIndexValue",
+                .then(tree.addTwoInOneOptionalInZeroOutArgument("indexOf",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             String src = getNbtValueAsString(scc.sources[0]);
@@ -436,13 +459,7 @@ public class StringCommand {
                                 return src.indexOf(sub);
                             }
                         }))
-                .then(addTwoInOneOptionalInZeroOutArgument("lastIndexOf",
-                        "sourcePath",
-                        "value",
-                        "substringSourcePath",
-                        "substringValue",
-                        "fromIndexSourcePath",
-                        "fromIndexValue",
+                .then(tree.addTwoInOneOptionalInZeroOutArgument("lastIndexOf",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             String src = getNbtValueAsString(scc.sources[0]);
@@ -453,13 +470,7 @@ public class StringCommand {
                                 return src.lastIndexOf(sub);
                             }
                         }))
-                .then(addTwoInOneOptionalInZeroOutArgument("startsWith",
-                        "sourcePath",
-                        "value",
-                        "prefixSourcePath",
-                        "prefixValue",
-                        "offsetSourcePath",
-                        "offsetValue",
+                .then(tree.addTwoInOneOptionalInZeroOutArgument("startsWith",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
@@ -472,46 +483,63 @@ public class StringCommand {
                             }
                             return toInt(result);
                         }))
-                .then(addTwoInZeroOutArgument("endsWith",
-                        "sourcePath",
-                        "value",
-                        "suffixSourcePath",
-                        "suffixValue",
+                .then(tree.addTwoInZeroOutArgument("endsWith",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var suffix = getNbtValueAsString(scc.sources[1]);
                             return toInt(src.endsWith(suffix));
                         }))
-                .then(addTwoInZeroOutArgument("contains",
-                        "sourcePath",
-                        "value",
-                        "substringSourcePath",
-                        "substringValue",
+                .then(tree.addTwoInZeroOutArgument("contains",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var substring = getNbtValueAsString(scc.sources[1]);
                             return toInt(src.contains(substring));
                         }))
-                .then(addTwoInZeroOutArgument("matches",
-                        "sourcePath",
-                        "value",
-                        "regexSourcePath",
-                        "regexValue",
+                .then(tree.addTwoInZeroOutArgument("equals",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var s0 = getNbtValueAsString(scc.sources[0]);
+                            var s1 = getNbtValueAsString(scc.sources[1]);
+                            return toInt(s0.equals(s1));
+                        }))
+                .then(tree.addTwoInZeroOutArgument("equalsIgnoreCase",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var s0 = getNbtValueAsString(scc.sources[0]);
+                            var s1 = getNbtValueAsString(scc.sources[1]);
+                            return toInt(s0.equalsIgnoreCase(s1));
+                        }))
+                .then(tree.addTwoInZeroOutArgument("matches",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var regex = getNbtValueAsString(scc.sources[1]);
+                            return toInt(StringExtension.matches(src, regex));
+                        }))
+                .then(tree.addTwoInZeroOutArgument("countMatches",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var regex = getNbtValueAsString(scc.sources[1]);
+                            return StringExtension.countMatches(src, regex);
+                        }))
+                .then(tree.addTwoInZeroOutArgument("countMatchesFully",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 2);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var regex = getNbtValueAsString(scc.sources[1]);
-                            return toInt(src.matches(regex));
+                            return StringExtension.countMatchesFully(src, regex);
                         }))
-                .then(addThreeInOneOutArgument("replace",
-                        "sourcePath",
-                        "value",
-                        "targetSourcePath",
-                        "targetValue",
-                        "replacementSourcePath",
-                        "replacementValue",
+                .then(tree.addTwoInZeroOutArgument("countOccurrences",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var substring = getNbtValueAsString(scc.sources[1]);
+                            return StringExtension.countOccurrences(src, substring);
+                        }))
+                .then(tree.addThreeInOneOutArgument("replace",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 3);
                             var src = getNbtValueAsString(scc.sources[0]);
@@ -520,37 +548,79 @@ public class StringCommand {
                             setTarget(ctx, scc, createNbtString(src.replace(target, replacement)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addThreeInOneOutArgument("replaceAll",
-                        "sourcePath",
-                        "value",
-                        "regexSourcePath",
-                        "regexValue",
-                        "replacementSourcePath",
-                        "replacementValue",
+                .then(tree.addThreeInOneOutArgument("replaceAll",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 3);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var regex = getNbtValueAsString(scc.sources[1]);
                             var replacement = getNbtValueAsString(scc.sources[2]);
-                            setTarget(ctx, scc, createNbtString(src.replaceAll(regex, replacement)));
+                            setTarget(ctx, scc, createNbtString(StringExtension.replaceAll(src, regex, replacement)));
                             return SINGLE_SUCCESS;
                         }))
-                .then(addThreeInOneOutArgument("replaceFirst",
-                        "sourcePath",
-                        "value",
-                        "regexSourcePath",
-                        "regexValue",
-                        "replacementSourcePath",
-                        "replacementValue",
+                .then(tree.addThreeInOneOutArgument("replaceFirst",
                         (ctx, scc) -> {
                             checkArgumentCount(scc.sources, 3);
                             var src = getNbtValueAsString(scc.sources[0]);
                             var regex = getNbtValueAsString(scc.sources[1]);
                             var replacement = getNbtValueAsString(scc.sources[2]);
-                            setTarget(ctx, scc, createNbtString(src.replaceFirst(regex, replacement)));
+                            setTarget(ctx, scc, createNbtString(StringExtension.replaceFirst(src, regex, replacement)));
+                            return SINGLE_SUCCESS;
+                        }))
+                .then(tree.addThreeInOneOutArgument("replaceFirstLiteral",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 3);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var target = getNbtValueAsString(scc.sources[1]);
+                            var replacement = getNbtValueAsString(scc.sources[2]);
+                            setTarget(ctx, scc, createNbtString(StringExtension.replaceFirstLiteral(src, target, replacement)));
+                            return SINGLE_SUCCESS;
+                        }))
+                .then(tree.addTwoInZeroOutArgument("containsAny",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var needles = getNbtValueAsStringList(scc.sources[1]);
+                            return toInt(AhoCorasick.of(needles).containsAny(src));
+                        }))
+                .then(tree.addTwoInZeroOutArgument("indexOfAny",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var needles = getNbtValueAsStringList(scc.sources[1]);
+                            return AhoCorasick.of(needles).indexOfAny(src);
+                        }))
+                .then(tree.addTwoInOneOutArgument("matchAllLiterals",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 2);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var needles = getNbtValueAsStringList(scc.sources[1]);
+                            var triples = AhoCorasick.of(needles).matchAll(src);
+                            setTarget(ctx, scc, new NbtIntArray(triples));
+                            return triples.length / 3;
+                        }))
+                .then(tree.addThreeInOneOutArgument("replaceEach",
+                        (ctx, scc) -> {
+                            checkArgumentCount(scc.sources, 3);
+                            var src = getNbtValueAsString(scc.sources[0]);
+                            var targets = getNbtValueAsStringList(scc.sources[1]);
+                            var replacements = getNbtValueAsStringList(scc.sources[2]);
+                            if (targets.size() != replacements.size()) {
+                                throw REPLACEMENT_COUNT_MISMATCH_EXCEPTION.create(targets.size(), replacements.size());
+                            }
+                            setTarget(ctx, scc, createNbtString(AhoCorasick.of(targets).replaceEach(src, replacements)));
                             return SINGLE_SUCCESS;
                         }));
-        dispatcher.register(stringCommand);
+        stringCommand.then(tree.buildEachArgument("each"));
+        stringCommand.then(tree.buildAllArgument("all"));
+        var node = dispatcher.register(stringCommand);
+        // Silent sources drop feedback before building it, like the ones running functions
+        node.addChild(literal("quiet")
+                .redirect(node, ctx -> ctx.getSource().withSilent())
+                .build());
+        StringUtilities.LOGGER.info("Registered /string with {} methods and {} command paths in {} ms",
+                tree.getMethodCount(),
+                StringCommandTree.countPaths(node),
+                String.format("%.2f", (System.nanoTime() - startTime) / 1_000_000.0));
     }
 
     public static NbtElement getNbtElement(Pair<NbtElement, NbtPathArgumentType.NbtPath> pair) throws CommandSyntaxException {
@@ -568,12 +638,114 @@ public class StringCommand {
         }
     }
 
+    public static List<String> getNbtValueAsStringList(Pair<NbtElement, NbtPathArgumentType.NbtPath> pair) throws CommandSyntaxException {
+        var element = getNbtElement(pair);
+        if (element instanceof AbstractNbtList<?> list) {
+            return Arrays.asList(toStringArray(list));
+        }
+        throw EXPECTED_LIST_EXCEPTION.create(element);
+    }
+
+    public static StringTemplate getStringTemplate(String template) throws CommandSyntaxException {
+        try {
+            return StringTemplate.of(template);
+        } catch (IllegalArgumentException e) {
+            throw INVALID_TEMPLATE_EXCEPTION.create(e.getMessage());
+        }
+    }
+
     public static String getNbtValueAsString(Pair<NbtElement, NbtPathArgumentType.NbtPath> pair) throws CommandSyntaxException {
         return getNbtElement(pair).asString();
     }
 
     public static NbtString createNbtString(String s) {
-        return NbtString.of(s);
+        return NbtStringTable.of(s);
+    }
+
+    public static NbtString createNbtString(char c) {
+        return NbtStringTable.of(c);
+    }
+
+    public static NbtList createStringList(String[] strings) {
+        NbtList list = new NbtList();
+        for (String s : strings) {
+            list.add(createNbtString(s));
+        }
+        return list;
+    }
+
+    /**
+     * Splits straight into the list, see {@link StringExtension#split(String, String, int, boolean, boolean, java.util.function.Consumer)}
+     */
+    public static NbtList createSplitList(String s, String separator, int limit, boolean literal, boolean skipEmpty) {
+        NbtList list = new NbtList();
+        StringExtension.split(s, separator, limit, literal, skipEmpty, piece -> list.add(createNbtString(piece)));
+        return list;
+    }
+
+    public static NbtList createCharList(String s) {
+        NbtList list = new NbtList();
+        for (char c : s.toCharArray()) {
+            list.add(createNbtString(c));
+        }
+        return list;
+    }
+
+    public static NbtList createCodePointStringList(String s) {
+        NbtList list = new NbtList();
+        s.codePoints().forEach(c -> list.add(NbtStringTable.ofCodePoint(c)));
+        return list;
+    }
+
+    /**
+     * @return the count of matches in the spans from {@link StringExtension#matchesAllSpans}
+     */
+    private static int countSpans(int[] spans, String regex, boolean groups) {
+        return spans.length / StringExtension.spanStride(regex, groups);
+    }
+
+    public static NbtIntArray createCodePointArray(String s) {
+        return new NbtIntArray(StringExtension.toCodePoints(s));
+    }
+
+    public static String[] toStringArray(AbstractNbtList<?> list) {
+        String[] strings = new String[list.size()];
+        for (int i = 0; i < strings.length; i++) {
+            strings[i] = list.get(i).asString();
+        }
+        return strings;
+    }
+
+    private static StringBuilderRegistry.Handle getBuilder(CommandContext<ServerCommandSource> ctx) throws CommandSyntaxException {
+        String id = StringArgumentType.getString(ctx, "id");
+        var builder = StringBuilderRegistry.get(id);
+        if (builder == null) {
+            throw UNKNOWN_BUILDER_EXCEPTION.create(id);
+        }
+        return builder;
+    }
+
+    public static CommandSyntaxException toCommandSyntaxException(RegexBudget.TimeoutException e) {
+        return REGEX_TIMEOUT_EXCEPTION.create(e.getTimeoutMillis());
+    }
+
+    public static CommandSyntaxException toCommandSyntaxException(StringBuilderRegistry.CapacityExceededException e) {
+        return BUILDER_CAPACITY_EXCEEDED_EXCEPTION.create(e.getMaxChars());
+    }
+
+    public static CommandSyntaxException toCommandSyntaxException(StringTooLongException e) {
+        return STRING_TOO_LONG_EXCEPTION.create(e.getLength(), e.getMaxLength());
+    }
+
+    public static CommandSyntaxException toCommandSyntaxException(IntegerOutOfRangeException e) {
+        int[] bounds = e.getBounds();
+        return switch (e.getReason()) {
+            case TOO_LOW -> INTEGER_TOO_LOW.create(e.getValue(), bounds[0]);
+            case TOO_HIGH -> INTEGER_TOO_HIGH.create(e.getValue(), bounds[0]);
+            case NOT_IN_RANGES -> INTEGER_NOT_IN_RANGE_2.create(e.getValue(),
+                    "[" + bounds[0] + ".." + bounds[1] + "]",
+                    "[" + bounds[2] + ".." + bounds[3] + "]");
+        };
     }
 
     public static int toInt(boolean bool) {
@@ -590,271 +762,139 @@ public class StringCommand {
         }
     }
 
-    private static Set<Character> createTrimCharsSet(StringCommandContext scc) throws CommandSyntaxException {
+    private static CodePointSet createTrimCharsSet(StringCommandContext scc) throws CommandSyntaxException {
         if (scc.sources.length <= 1) {
             return null;
         }
         var tc = getNbtElement(scc.sources[1]);
-        var trimChars = new HashSet<Character>();
         if (tc instanceof NbtString str) {
-            for (char c : str.asString().toCharArray()) {
-                trimChars.add(c);
-            }
-        } else if (tc instanceof NbtList list && list.getHeldType() == NbtElement.STRING_TYPE) {
+            return CodePointSet.of(str.asString());
+        }
+        if (tc instanceof NbtList list && list.getHeldType() == NbtElement.STRING_TYPE) {
             int len = list.size();
+            var sb = new StringBuilder(len);
             for (int i = 0; i < len; i++) {
                 String str = list.get(i).asString();
-                if (str.length() != 1) {
+                if (str.isEmpty() || str.length() != Character.charCount(str.codePointAt(0))) {
                     throw INVALID_CHAR_ARRAY_EXCEPTION.create(list);
                 }
-                trimChars.add(str.charAt(0));
+                sb.append(str);
             }
+            return CodePointSet.of(sb.toString());
         } else {
             throw EXPECTED_STRING_LIST_EXCEPTION.create(tc);
         }
-        return trimChars;
+    }
+
+    /**
+     * @return a command applying the mapper to its source, returning the size of a list result or 1
+     */
+    static StringCommandExec<ServerCommandSource> map(ElementMapper<ServerCommandSource> mapper) {
+        return (ctx, scc) -> {
+            checkArgumentCount(scc.sources, 1);
+            var result = mapper.apply(ctx, getNbtElement(scc.sources[0]));
+            setTarget(ctx, scc, result);
+            return StringPipeline.getResultValue(result);
+        };
+    }
+
+    /**
+     * @return a command applying the mapper to every element of its source list, writing the results as one list
+     * and returning its size
+     */
+    static StringCommandExec<ServerCommandSource> mapEach(ElementMapper<ServerCommandSource> mapper) {
+        return (ctx, scc) -> {
+            checkArgumentCount(scc.sources, 1);
+            var element = getNbtElement(scc.sources[0]);
+            if (!(element instanceof AbstractNbtList<?> list)) {
+                throw EXPECTED_LIST_EXCEPTION.create(element);
+            }
+            int size = list.size();
+            var elements = new NbtElement[size];
+            for (int i = 0; i < size; i++) {
+                elements[i] = list.get(i);
+            }
+            return mapAndSetTarget(ctx, scc, mapper, elements);
+        };
+    }
+
+    /**
+     * @return a command applying the mapper to every element matched by its source, see
+     * {@link StringCommandContext#getSourceMatches()}, writing the results as one list and returning its size
+     */
+    static StringCommandExec<ServerCommandSource> mapAll(ElementMapper<ServerCommandSource> mapper) {
+        return (ctx, scc) -> mapAndSetTarget(ctx, scc, mapper, scc.getSourceMatches().toArray(new NbtElement[0]));
+    }
+
+    private static int mapAndSetTarget(
+            CommandContext<ServerCommandSource> ctx,
+            StringCommandContext scc,
+            ElementMapper<ServerCommandSource> mapper,
+            NbtElement[] elements) throws CommandSyntaxException {
+        // Large lists are mapped on the fork-join pool, but the list is still built and written here
+        var results = new NbtElement[elements.length];
+        ParallelStrings.map(elements, results, e -> mapper.apply(ctx, e));
+        var result = new NbtList();
+        for (NbtElement e : results) {
+            result.add(e);
+        }
+        setTarget(ctx, scc, result);
+        return results.length;
+    }
+
+    /**
+     * @return the length of a string, the total length of the strings directly in a list, or 0 for anything else
+     */
+    public static long countChars(NbtElement element) {
+        if (element instanceof NbtString str) {
+            return str.asString().length();
+        }
+        long chars = 0;
+        if (element instanceof NbtList list && list.getHeldType() == NbtElement.STRING_TYPE) {
+            for (NbtElement e : list) {
+                chars += e.asString().length();
+            }
+        }
+        return chars;
     }
 
     private static void setTarget(CommandContext<ServerCommandSource> ctx, StringCommandContext scc, NbtElement element) throws CommandSyntaxException {
-        scc.targetPath.put(scc.targetRoot, element);
-        scc.target.setNbt(scc.targetRoot);
+        long startTime = scc.isTimed() ? System.nanoTime() : 0;
+        NbtCompound targetRoot = scc.getTargetRoot();
+        scc.targetPath.put(targetRoot, element);
+        var transaction = WriteTransaction.getCurrent();
+        if (transaction == null || !transaction.recordWrite(scc.target, scc.targetPath)) {
+            scc.target.setNbt(targetRoot);
+        }
+        scc.addOutputChars(countChars(element));
         ctx.getSource().sendFeedback(scc.target::feedbackModify, true);
+        if (scc.isTimed()) {
+            scc.addWriteNanos(System.nanoTime() - startTime);
+        }
     }
 
-    private static ArgumentBuilder<ServerCommandSource, ?> addTarget(
-            ArgumentBuilder<ServerCommandSource, ?> argument,
-            BiFunction<ArgumentBuilder<ServerCommandSource, ?>, DataCommand.ObjectType, ArgumentBuilder<ServerCommandSource, ?>> argumentAdder) {
-        for (DataCommand.ObjectType target : DataCommand.TARGET_OBJECT_TYPES) {
-            target.addArgumentsToBuilder(argument,
-                    builder -> builder.then(argumentAdder.apply(
-                            argument("targetPath", NbtPathArgumentType.nbtPath()),
-                            target)));
-        }
-        return argument;
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addSource(
-            ArgumentBuilder<ServerCommandSource, ?> argument,
-            String sourcePathName,
-            String valueName,
-            BiFunction<ArgumentBuilder<ServerCommandSource, ?>, SourceGetter, ArgumentBuilder<ServerCommandSource, ?>> argumentAdder) {
-        for (DataCommand.ObjectType source : DataCommand.SOURCE_OBJECT_TYPES) {
-            argument.then(source.addArgumentsToBuilder(literal("from"),
-                    innerBuilder -> argumentAdder.apply(innerBuilder, new FromWithoutPathSourceGetter(source))
-                            .then(argumentAdder.apply(argument(sourcePathName, NbtPathArgumentType.nbtPath()),
-                                    new FromWithPathSourceGetter(source, sourcePathName)))));
-        }
-        argument.then(literal("value")
-                .then(argumentAdder.apply(argument(valueName, NbtElementArgumentType.nbtElement()), new ValueSourceGetter(valueName))));
-        return argument;
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addOneInZeroOutArgument(
-            String name,
-            StringCommandExec<ServerCommandSource> command) {
-        return addSource(literal(name),
-                "sourcePath",
-                "value",
-                (builder, source) -> builder.executes(
-                        ctx -> command.apply(ctx, new StringCommandContext(
-                                null,
-                                null,
-                                source.getSourceElement(ctx),
-                                source.getSourcePath(ctx)))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addOneInOneOutArgument(
-            String name,
-            StringCommandExec<ServerCommandSource> command) {
-        return addTarget(literal(name),
-                (builder, target) -> addSource(builder,
-                        "sourcePath",
-                        "value",
-                        (innerBuilder, source) -> innerBuilder.executes(
-                                ctx -> command.apply(ctx, new StringCommandContext(
-                                        target.getObject(ctx),
-                                        NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                        source.getSourceElement(ctx),
-                                        source.getSourcePath(ctx))))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addOneInOneOptionalInOneOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            StringCommandExec<ServerCommandSource> command) {
-        return addTarget(literal(name),
-                (builder, target) -> addSource(builder,
-                        sourcePathName0,
-                        valueName0,
-                        (innerBuilder, source0) -> addSource(
-                                innerBuilder.executes(ctx -> command.apply(ctx, new StringCommandContext(
-                                        target.getObject(ctx),
-                                        NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                        source0.getSourceElement(ctx),
-                                        source0.getSourcePath(ctx)))),
-                                sourcePathName1,
-                                valueName1,
-                                (inner2Builder, source1) -> inner2Builder.executes(
-                                        ctx -> command.apply(ctx, new StringCommandContext(
-                                                target.getObject(ctx),
-                                                NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                                new Pair[]{
-                                                        source0.CreatePair(ctx),
-                                                        source1.CreatePair(ctx)
-                                                }))))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addTwoInZeroOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            StringCommandExec<ServerCommandSource> command) {
-        return addSource(literal(name),
-                sourcePathName0,
-                valueName0,
-                (builder, source0) -> addSource(builder,
-                        sourcePathName1,
-                        valueName1,
-                        (innerBuilder, source1) -> innerBuilder.executes(
-                                ctx -> command.apply(ctx, new StringCommandContext(
-                                        null,
-                                        null,
-                                        new Pair[]{
-                                                source0.CreatePair(ctx),
-                                                source1.CreatePair(ctx)
-                                        })))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addTwoInOneOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            StringCommandExec<ServerCommandSource> command) {
-        return addTarget(literal(name),
-                (builder, target) -> addSource(builder,
-                        sourcePathName0,
-                        valueName0,
-                        (innerBuilder, source0) -> addSource(innerBuilder,
-                                sourcePathName1,
-                                valueName1,
-                                (inner2Builder, source1) -> inner2Builder.executes(
-                                        ctx -> command.apply(ctx, new StringCommandContext(
-                                                target.getObject(ctx),
-                                                NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                                new Pair[]{
-                                                        source0.CreatePair(ctx),
-                                                        source1.CreatePair(ctx)
-                                                }))))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addTwoInOneOptionalInZeroOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            String sourcePathName2,
-            String valueName2,
-            StringCommandExec<ServerCommandSource> command) {
-        return addSource(literal(name),
-                sourcePathName0,
-                valueName0,
-                (builder, source0) -> addSource(builder,
-                        sourcePathName1,
-                        valueName1,
-                        (inner1Builder, source1) -> addSource(
-                                inner1Builder.executes(ctx -> command.apply(ctx, new StringCommandContext(
-                                        null,
-                                        null,
-                                        new Pair[]{
-                                                source0.CreatePair(ctx),
-                                                source1.CreatePair(ctx)
-                                        }))),
-                                sourcePathName2,
-                                valueName2,
-                                (inner2Builder, source2) -> inner2Builder.executes(
-                                        ctx -> command.apply(ctx, new StringCommandContext(
-                                                null,
-                                                null,
-                                                new Pair[]{
-                                                        source0.CreatePair(ctx),
-                                                        source1.CreatePair(ctx),
-                                                        source2.CreatePair(ctx)
-                                                }))))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addTwoInOneOptionalInOneOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            String sourcePathName2,
-            String valueName2,
-            StringCommandExec<ServerCommandSource> command) {
-        return addTarget(literal(name),
-                (builder, target) -> addSource(builder,
-                        sourcePathName0,
-                        valueName0,
-                        (innerBuilder, source0) -> addSource(innerBuilder,
-                                sourcePathName1,
-                                valueName1,
-                                (inner2Builder, source1) -> addSource(
-                                        inner2Builder.executes(ctx -> command.apply(ctx, new StringCommandContext(
-                                                target.getObject(ctx),
-                                                NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                                new Pair[]{
-                                                        source0.CreatePair(ctx),
-                                                        source1.CreatePair(ctx)
-                                                }))),
-                                        sourcePathName2,
-                                        valueName2,
-                                        (inner3Builder, source2) -> inner3Builder.executes(
-                                                ctx -> command.apply(ctx, new StringCommandContext(
-                                                        target.getObject(ctx),
-                                                        NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                                        new Pair[]{
-                                                                source0.CreatePair(ctx),
-                                                                source1.CreatePair(ctx),
-                                                                source2.CreatePair(ctx)
-                                                        })))))));
-    }
-
-    private static ArgumentBuilder<ServerCommandSource, ?> addThreeInOneOutArgument(
-            String name,
-            String sourcePathName0,
-            String valueName0,
-            String sourcePathName1,
-            String valueName1,
-            String sourcePathName2,
-            String valueName2,
-            StringCommandExec<ServerCommandSource> command) {
-        return addTarget(literal(name),
-                (builder, target) -> addSource(builder,
-                        sourcePathName0,
-                        valueName0,
-                        (innerBuilder, source0) -> addSource(innerBuilder,
-                                sourcePathName1,
-                                valueName1,
-                                (inner2Builder, source1) -> addSource(inner2Builder,
-                                        sourcePathName2,
-                                        valueName2,
-                                        (inner3Builder, source2) -> inner3Builder.executes(
-                                                ctx -> command.apply(ctx, new StringCommandContext(
-                                                        target.getObject(ctx),
-                                                        NbtPathArgumentType.getNbtPath(ctx, "targetPath"),
-                                                        new Pair[]{
-                                                                source0.CreatePair(ctx),
-                                                                source1.CreatePair(ctx),
-                                                                source2.CreatePair(ctx)
-                                                        })))))));
+    /**
+     * Sets the score of every holder of the {@code score} target of a method without target to its result.
+     */
+    static void setTargetScores(CommandContext<ServerCommandSource> ctx, StringCommandContext scc, int result) throws CommandSyntaxException {
+        long startTime = scc.isTimed() ? System.nanoTime() : 0;
+        var objective = ScoreboardObjectiveArgumentType.getWritableObjective(ctx, "targetObjective");
+        Collection<String> holders = ScoreHolderArgumentType.getScoreboardScoreHolders(ctx, "targetHolders");
+        var scoreboard = ctx.getSource().getServer().getScoreboard();
+        for (String holder : holders) {
+            scoreboard.getPlayerScore(holder, objective).setScore(result);
+        }
+        if (holders.size() == 1) {
+            String holder = holders.iterator().next();
+            ctx.getSource().sendFeedback(() -> Text.translatable("commands.scoreboard.players.set.success.single",
+                    objective.toHoverableText(), holder, result), true);
+        } else {
+            ctx.getSource().sendFeedback(() -> Text.translatable("commands.scoreboard.players.set.success.multiple",
+                    objective.toHoverableText(), holders.size(), result), true);
+        }
+        if (scc.isTimed()) {
+            scc.addWriteNanos(System.nanoTime() - startTime);
+        }
     }
 
     @FunctionalInterface
@@ -862,13 +902,30 @@ public class StringCommand {
         int apply(CommandContext<S> ctx, StringCommandContext scc) throws CommandSyntaxException;
     }
 
+    /**
+     * Maps a single source element to a result element. The context is only used to read command arguments.
+     */
+    @FunctionalInterface
+    public interface ElementMapper<S> {
+        NbtElement apply(CommandContext<S> ctx, NbtElement element) throws CommandSyntaxException;
+    }
+
     public abstract static class SourceGetter {
-        public abstract NbtElement getSourceElement(CommandContext<ServerCommandSource> context) throws CommandSyntaxException;
+        public abstract NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException;
 
         public abstract NbtPathArgumentType.NbtPath getSourcePath(CommandContext<ServerCommandSource> context) throws CommandSyntaxException;
 
-        public Pair<NbtElement, NbtPathArgumentType.NbtPath> CreatePair(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
-            return new Pair<>(getSourceElement(context), getSourcePath(context));
+        public Pair<NbtElement, NbtPathArgumentType.NbtPath> CreatePair(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            return new Pair<>(getSourceElement(context, snapshots), getSourcePath(context));
+        }
+
+        /**
+         * @return every element matched by the path, or the source itself if there is no path
+         */
+        public List<NbtElement> getAllSourceElements(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            var element = getSourceElement(context, snapshots);
+            var path = getSourcePath(context);
+            return path == null ? List.of(element) : path.get(element);
         }
     }
 
@@ -879,8 +936,12 @@ public class StringCommand {
             this.source = source;
         }
 
-        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
-            return source.getObject(context).getNbt();
+        public DataCommand.ObjectType getSource() {
+            return source;
+        }
+
+        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            return snapshots.getNbt(source, context);
         }
 
         public NbtPathArgumentType.NbtPath getSourcePath(CommandContext<ServerCommandSource> context) {
@@ -897,8 +958,8 @@ public class StringCommand {
             this.sourcePathName = sourcePathName;
         }
 
-        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context) throws CommandSyntaxException {
-            return source.getObject(context).getNbt();
+        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            return snapshots.getNbt(source, context);
         }
 
         public NbtPathArgumentType.NbtPath getSourcePath(CommandContext<ServerCommandSource> context) {
@@ -913,7 +974,7 @@ public class StringCommand {
             this.valueName = valueName;
         }
 
-        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context) {
+        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) {
             return NbtElementArgumentType.getNbtElement(context, valueName);
         }
 
@@ -921,4 +982,73 @@ public class StringCommand {
             return null;
         }
     }
+
+    /**
+     * Reads the score of a single holder as an {@link NbtInt}.
+     */
+    public static class ScoreSourceGetter extends SourceGetter {
+        private final String holderName;
+        private final String objectiveName;
+
+        public ScoreSourceGetter(String holderName, String objectiveName) {
+            this.holderName = holderName;
+            this.objectiveName = objectiveName;
+        }
+
+        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            String holder = ScoreHolderArgumentType.getScoreHolder(context, holderName);
+            var objective = ScoreboardObjectiveArgumentType.getObjective(context, objectiveName);
+            var scoreboard = context.getSource().getServer().getScoreboard();
+            if (!scoreboard.playerHasObjective(holder, objective)) {
+                throw SCORE_NOT_SET_EXCEPTION.create(objective.getName(), holder);
+            }
+            return NbtInt.of(scoreboard.getPlayerScore(holder, objective).getScore());
+        }
+
+        public NbtPathArgumentType.NbtPath getSourcePath(CommandContext<ServerCommandSource> context) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads every entity matched by a multi-entity selector, only used by {@code all} methods.
+     */
+    public static class EntitiesSourceGetter extends SourceGetter {
+        private final String entitiesName;
+        private final String sourcePathName;
+
+        /**
+         * @param sourcePathName the name of the path argument, or null if there is none
+         */
+        public EntitiesSourceGetter(String entitiesName, String sourcePathName) {
+            this.entitiesName = entitiesName;
+            this.sourcePathName = sourcePathName;
+        }
+
+        public NbtElement getSourceElement(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            return snapshots.getNbt(EntityArgumentType.getEntities(context, entitiesName).iterator().next());
+        }
+
+        public NbtPathArgumentType.NbtPath getSourcePath(CommandContext<ServerCommandSource> context) {
+            return sourcePathName == null ? null : NbtPathArgumentType.getNbtPath(context, sourcePathName);
+        }
+
+        /**
+         * Entities without any element matching the path are skipped, rather than failing the whole command.
+         */
+        @Override
+        public List<NbtElement> getAllSourceElements(CommandContext<ServerCommandSource> context, NbtSnapshotCache snapshots) throws CommandSyntaxException {
+            var path = getSourcePath(context);
+            var elements = new ArrayList<NbtElement>();
+            for (Entity entity : EntityArgumentType.getEntities(context, entitiesName)) {
+                NbtCompound nbt = snapshots.getNbt(entity);
+                if (path == null) {
+                    elements.add(nbt);
+                } else if (path.count(nbt) > 0) {
+                    elements.addAll(path.get(nbt));
+                }
+            }
+            return elements;
+        }
+    }
 }
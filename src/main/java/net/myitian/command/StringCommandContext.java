@@ -7,30 +7,93 @@ import net.minecraft.nbt.NbtCompound;
 import net.minecraft.nbt.NbtElement;
 import net.minecraft.util.Pair;
 
+import java.util.List;
+
 public class StringCommandContext {
     public final DataCommandObject target;
-    public final NbtCompound targetRoot;
     public final NbtPathArgumentType.NbtPath targetPath;
     public final Pair<NbtElement, NbtPathArgumentType.NbtPath>[] sources;
+    private final NbtSnapshotCache snapshots;
+    private NbtCompound targetRoot;
+    private List<NbtElement> sourceMatches;
+    private long outputChars;
+    private boolean timed;
+    private long writeNanos;
 
     public StringCommandContext(
             DataCommandObject target,
             NbtPathArgumentType.NbtPath targetPath,
             NbtElement source,
-            NbtPathArgumentType.NbtPath sourcePath) throws CommandSyntaxException {
-        this.target = target;
-        this.targetRoot = target == null ? null : target.getNbt();
-        this.targetPath = targetPath;
-        sources = new Pair[]{new Pair<>(source, sourcePath)};
+            NbtPathArgumentType.NbtPath sourcePath) {
+        this(target, targetPath, new Pair[]{new Pair<>(source, sourcePath)});
     }
 
     public StringCommandContext(
             DataCommandObject target,
             NbtPathArgumentType.NbtPath targetPath,
-            Pair<NbtElement, NbtPathArgumentType.NbtPath>[] sources) throws CommandSyntaxException {
+            Pair<NbtElement, NbtPathArgumentType.NbtPath>[] sources) {
+        this(target, targetPath, sources, new NbtSnapshotCache());
+    }
+
+    public StringCommandContext(
+            DataCommandObject target,
+            NbtPathArgumentType.NbtPath targetPath,
+            Pair<NbtElement, NbtPathArgumentType.NbtPath>[] sources,
+            NbtSnapshotCache snapshots) {
         this.target = target;
-        this.targetRoot = target == null ? null : target.getNbt();
         this.targetPath = targetPath;
         this.sources = sources;
+        this.snapshots = snapshots;
+    }
+
+    /**
+     * @return the NBT of the target, shared with sources reading the same object
+     */
+    public NbtCompound getTargetRoot() throws CommandSyntaxException {
+        if (targetRoot == null && target != null) {
+            targetRoot = snapshots.getNbt(target);
+        }
+        return targetRoot;
+    }
+
+    /**
+     * @return every element matched by the source of an {@code all} method, or null for other methods
+     */
+    public List<NbtElement> getSourceMatches() {
+        return sourceMatches;
+    }
+
+    void setSourceMatches(List<NbtElement> sourceMatches) {
+        this.sourceMatches = sourceMatches;
+    }
+
+    /**
+     * @return the count of chars written to the target so far, see {@link StringCommand#countChars(NbtElement)}
+     */
+    public long getOutputChars() {
+        return outputChars;
+    }
+
+    void addOutputChars(long chars) {
+        outputChars += chars;
+    }
+
+    /**
+     * @return whether the time spent writing the target should be measured, for {@link StringMethodEvent}
+     */
+    public boolean isTimed() {
+        return timed;
+    }
+
+    void setTimed(boolean timed) {
+        this.timed = timed;
+    }
+
+    public long getWriteNanos() {
+        return writeNanos;
+    }
+
+    void addWriteNanos(long nanos) {
+        writeNanos += nanos;
     }
 }
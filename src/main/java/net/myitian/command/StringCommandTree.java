@@ -0,0 +1,629 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.Command;
+import com.mojang.brigadier.ResultConsumer;
+import com.mojang.brigadier.SingleRedirectModifier;
+import com.mojang.brigadier.arguments.StringArgumentType;
+import com.mojang.brigadier.builder.ArgumentBuilder;
+import com.mojang.brigadier.context.CommandContext;
+import com.mojang.brigadier.context.ParsedArgument;
+import com.mojang.brigadier.context.ParsedCommandNode;
+import com.mojang.brigadier.context.StringRange;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.tree.ArgumentCommandNode;
+import com.mojang.brigadier.tree.CommandNode;
+import com.mojang.brigadier.tree.LiteralCommandNode;
+import net.minecraft.command.argument.EntityArgumentType;
+import net.minecraft.command.argument.NbtElementArgumentType;
+import net.minecraft.command.argument.NbtPathArgumentType;
+import net.minecraft.command.argument.ScoreHolderArgumentType;
+import net.minecraft.command.argument.ScoreboardObjectiveArgumentType;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.server.command.DataCommand;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.util.Pair;
+import net.myitian.IntegerOutOfRangeException;
+import net.myitian.MethodStats;
+import net.myitian.RegexBudget;
+import net.myitian.StringBuilderRegistry;
+import net.myitian.StringTooLongException;
+
+import java.util.*;
+import java.util.function.Function;
+
+import static net.minecraft.server.command.CommandManager.argument;
+import static net.minecraft.server.command.CommandManager.literal;
+
+/**
+ * Builds the method nodes of {@code /string}.
+ * <p>
+ * The server copies the command tree for each player once per path to every node, so a node shared by two parents
+ * is copied and sent twice. No node here has two parents; nodes are shared with redirects instead, which are copied
+ * once. The first method of each shape (target or not, count of sources) holds the target and source nodes, and
+ * the other methods of the shape redirect to it. In each source level, the first node ending the level holds the
+ * next level, and the other ones redirect to it, or to each literal starting it if they have children of their own.
+ * <p>
+ * Redirected nodes cannot capture which method, target type or source type led to them, so a single executor looks
+ * them up from the parsed nodes instead. Brigadier parses the nodes after each redirect into a context of its own
+ * and runs the command with the last one, so every redirect adds the context it ends to a chain kept for the
+ * source, and the executor merges the chain back into one context.
+ */
+public class StringCommandTree {
+    /**
+     * Only {@code concat2} takes this many. Each source level is a fixed set of nodes whose other routes redirect
+     * to the {@code value} node holding the next level, so every source past the third adds about 30 nodes to the
+     * tree of each player instead of multiplying it.
+     */
+    public static final int MAX_SOURCES = 16;
+
+    /**
+     * Contexts ended by a redirect, by the source the command continues with. Commands only run on the server
+     * thread. A chain left by a command that failed before its executor goes away with its source.
+     */
+    private static final Map<ServerCommandSource, List<CommandContext<ServerCommandSource>>> CHAINS = new WeakHashMap<>();
+    private static final ResultConsumer<ServerCommandSource> NO_RESULT_CONSUMER = (context, success, result) -> {
+    };
+    private static final SingleRedirectModifier<ServerCommandSource> LINK = StringCommandTree::link;
+
+    /**
+     * By the literal of their name
+     */
+    private final Map<CommandNode<ServerCommandSource>, Method> methods = new IdentityHashMap<>();
+    private final Map<CommandNode<ServerCommandSource>, DataCommand.ObjectType> targetNodes = new IdentityHashMap<>();
+    private final Map<CommandNode<ServerCommandSource>, IndexedSourceGetter> sourceNodes = new IdentityHashMap<>();
+    private final Set<CommandNode<ServerCommandSource>> scoreTargetNodes = Collections.newSetFromMap(new IdentityHashMap<>());
+    /**
+     * The node holding the target and source nodes of each shape, which the other methods of the shape redirect to
+     */
+    private final Map<Shape, CommandNode<ServerCommandSource>> shapeNodes = new HashMap<>();
+    private final Command<ServerCommandSource> executor = this::execute;
+    private final Collection<CommandNode<ServerCommandSource>> eachMethodNodes = new ArrayList<>();
+    private final Collection<CommandNode<ServerCommandSource>> allMethodNodes = new ArrayList<>();
+
+    /**
+     * @return the count of methods, not counting their {@code each} and {@code all} variants
+     */
+    public int getMethodCount() {
+        return methods.size() - eachMethodNodes.size() - allMethodNodes.size();
+    }
+
+    /**
+     * The server copies the tree for each player once per path to every node, not following redirects, and sends
+     * the copy.
+     *
+     * @return the count of paths from the given node to any node below it, including the empty one
+     */
+    public static long countPaths(CommandNode<ServerCommandSource> root) {
+        return countPaths(root, new IdentityHashMap<>());
+    }
+
+    private static long countPaths(CommandNode<ServerCommandSource> node, Map<CommandNode<ServerCommandSource>, Long> counts) {
+        Long count = counts.get(node);
+        if (count == null) {
+            long paths = 1;
+            for (var child : node.getChildren()) {
+                paths += countPaths(child, counts);
+            }
+            count = paths;
+            counts.put(node, count);
+        }
+        return count;
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addMethod(
+            String name,
+            boolean hasTarget,
+            int minSources,
+            int maxSources,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        var shape = new Shape(hasTarget, minSources, maxSources, null, false);
+        return addMethod(name, null, shape, command);
+    }
+
+    /**
+     * Adds a method whose name is followed by the given argument, then by its target and sources.
+     */
+    public LiteralCommandNode<ServerCommandSource> addMethod(
+            String name,
+            ArgumentBuilder<ServerCommandSource, ?> argument,
+            boolean hasTarget,
+            int minSources,
+            int maxSources,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        var shape = new Shape(hasTarget, minSources, maxSources, null, false);
+        return addMethod(name, argument, shape, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addOneInZeroOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, false, 1, 1, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addOneInOneOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, true, 1, 1, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addOneInOneOptionalInOneOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, true, 1, 2, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addTwoInZeroOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, false, 2, 2, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addTwoInOneOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, true, 2, 2, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addTwoInOneOptionalInZeroOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, false, 2, 3, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addTwoInOneOptionalInOneOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, true, 2, 3, command);
+    }
+
+    public LiteralCommandNode<ServerCommandSource> addThreeInOneOutArgument(
+            String name,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, true, 3, 3, command);
+    }
+
+    /**
+     * Adds a one-in-one-out method defined on a single element, together with its {@code each} variant
+     * which maps every element of a source list, and its {@code all} variant which maps every element matched
+     * by its source. See {@link #buildEachArgument(String)} and {@link #buildAllArgument(String)}.
+     */
+    public LiteralCommandNode<ServerCommandSource> addOneInOneOutMapArgument(
+            String name,
+            StringCommand.ElementMapper<ServerCommandSource> mapper) {
+        return addMapMethod(name, new Shape(true, 1, 1, null, false), mapper);
+    }
+
+    /**
+     * Adds a method whose single source is followed by {@code then <greedy string>}, together with its
+     * {@code each} and {@code all} variants.
+     */
+    public LiteralCommandNode<ServerCommandSource> addPipeArgument(
+            String name,
+            String separator,
+            String argumentName,
+            StringCommand.ElementMapper<ServerCommandSource> mapper) {
+        return addMapMethod(name, new Shape(true, 1, 1, new Tail(separator, argumentName), false), mapper);
+    }
+
+    /**
+     * Builds the node holding the {@code each} variants of every map method added so far.
+     */
+    public LiteralCommandNode<ServerCommandSource> buildEachArgument(String name) {
+        return buildVariantArgument(name, eachMethodNodes);
+    }
+
+    /**
+     * Builds the node holding the {@code all} variants of every map method added so far. Their source reads
+     * every element matched by its path instead of the first one, and can also be {@code from entities} with a
+     * selector matching any count of entities.
+     */
+    public LiteralCommandNode<ServerCommandSource> buildAllArgument(String name) {
+        return buildVariantArgument(name, allMethodNodes);
+    }
+
+    private static LiteralCommandNode<ServerCommandSource> buildVariantArgument(
+            String name,
+            Collection<CommandNode<ServerCommandSource>> children) {
+        var builder = literal(name);
+        for (var child : children) {
+            builder.then(child);
+        }
+        return builder.build();
+    }
+
+    private LiteralCommandNode<ServerCommandSource> addMapMethod(
+            String name,
+            Shape shape,
+            StringCommand.ElementMapper<ServerCommandSource> mapper) {
+        // Added first, since the variants are added to the tree after it and may redirect to its nodes
+        var node = addMethod(name, null, shape, StringCommand.map(mapper));
+        eachMethodNodes.add(addMethod(name, "each " + name, null, shape, StringCommand.mapEach(mapper)));
+        var allShape = new Shape(shape.hasTarget, shape.minSources, shape.maxSources, shape.tail, true);
+        allMethodNodes.add(addMethod(name, "all " + name, null, allShape, StringCommand.mapAll(mapper)));
+        return node;
+    }
+
+    private LiteralCommandNode<ServerCommandSource> addMethod(
+            String name,
+            ArgumentBuilder<ServerCommandSource, ?> argument,
+            Shape shape,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        return addMethod(name, name, argument, shape, command);
+    }
+
+    /**
+     * @param statsName the name the method is recorded under in {@link MethodStats}
+     */
+    private LiteralCommandNode<ServerCommandSource> addMethod(
+            String name,
+            String statsName,
+            ArgumentBuilder<ServerCommandSource, ?> argument,
+            Shape shape,
+            StringCommand.StringCommandExec<ServerCommandSource> command) {
+        if (shape.maxSources > MAX_SOURCES || shape.minSources > shape.maxSources || !shape.hasTarget && shape.maxSources == 0) {
+            throw new IllegalArgumentException("Unsupported source count of method " + name);
+        }
+        var literal = literal(name);
+        var last = argument == null ? literal : argument;
+        var shapeNode = shapeNodes.get(shape);
+        if (shapeNode == null) {
+            for (var child : buildShape(shape)) {
+                last.then(child);
+            }
+        } else {
+            last.redirect(shapeNode, LINK);
+        }
+        var lastNode = last.build();
+        var node = argument == null ? (LiteralCommandNode<ServerCommandSource>) lastNode : literal.then(lastNode).build();
+        if (shapeNode == null) {
+            shapeNodes.put(shape, lastNode);
+        }
+        methods.put(node, new Method(command, MethodStats.register(statsName), shape.maxSources, shape.all));
+        return node;
+    }
+
+    /**
+     * Adds the context ended by a redirect to the chain of its source. The first redirect of a command starts the
+     * chain with a copy of the source, which is the same but for being a new object.
+     */
+    private static ServerCommandSource link(CommandContext<ServerCommandSource> ctx) throws CommandSyntaxException {
+        var source = ctx.getSource();
+        var chain = CHAINS.get(source);
+        if (chain == null) {
+            // Brigadier runs nothing, without an error, if the command ends after a redirect before an executable node
+            var last = ctx;
+            while (last.getChild() != null) {
+                last = last.getChild();
+            }
+            if (last.getCommand() == null) {
+                throw CommandSyntaxException.BUILT_IN_EXCEPTIONS.dispatcherUnknownCommand().create();
+            }
+            // Passes results on to the consumer of the source, so execute store still works
+            source = source.mergeConsumers(NO_RESULT_CONSUMER, (consumer, ignored) -> consumer::onCommandComplete);
+            chain = new ArrayList<>();
+            CHAINS.put(source, chain);
+        }
+        chain.add(ctx);
+        return source;
+    }
+
+    /**
+     * @return the context of the whole command, with the nodes and arguments of every context in the chain
+     */
+    private static CommandContext<ServerCommandSource> merge(List<CommandContext<ServerCommandSource>> chain) {
+        var nodes = new ArrayList<ParsedCommandNode<ServerCommandSource>>();
+        var arguments = new HashMap<String, ParsedArgument<ServerCommandSource, ?>>();
+        for (var context : chain) {
+            for (var parsed : context.getNodes()) {
+                nodes.add(parsed);
+                if (parsed.getNode() instanceof ArgumentCommandNode<ServerCommandSource, ?> node) {
+                    var range = parsed.getRange();
+                    var value = context.getArgument(node.getName(), Object.class);
+                    arguments.put(node.getName(), new ParsedArgument<>(range.getStart(), range.getEnd(), value));
+                }
+            }
+        }
+        var first = chain.get(0);
+        var last = chain.get(chain.size() - 1);
+        return new CommandContext<>(
+                last.getSource(),
+                last.getInput(),
+                arguments,
+                last.getCommand(),
+                first.getRootNode(),
+                nodes,
+                StringRange.encompassing(first.getRange(), last.getRange()),
+                null,
+                null,
+                false);
+    }
+
+    private List<CommandNode<ServerCommandSource>> buildShape(Shape shape) {
+        List<CommandNode<ServerCommandSource>> next = shape.tail == null ? List.of() : List.of(buildTail(shape.tail));
+        for (int i = shape.maxSources - 1; i >= 0; i--) {
+            next = buildSourceLevel(i, shape.tail == null && i + 1 >= shape.minSources, shape.all, next);
+        }
+        return shape.hasTarget ? buildTargetLevel(shape.tail == null && shape.maxSources == 0, next) : buildScoreTargetLevel(next);
+    }
+
+    private LiteralCommandNode<ServerCommandSource> buildTail(Tail tail) {
+        return literal(tail.separator)
+                .then(argument(tail.argumentName, StringArgumentType.greedyString())
+                        .executes(executor))
+                .build();
+    }
+
+    /**
+     * Methods without target can store their result to scores, without {@code execute store} around them.
+     * The {@code store} literal keeps this apart from a {@code score} source, which may follow directly.
+     *
+     * @return the given nodes, and the {@code store score <targetHolders> <targetObjective>} node leading to them
+     */
+    private List<CommandNode<ServerCommandSource>> buildScoreTargetLevel(List<CommandNode<ServerCommandSource>> next) {
+        var objectiveNode = redirectEach(argument("targetObjective", ScoreboardObjectiveArgumentType.scoreboardObjective()), false, next).build();
+        scoreTargetNodes.add(objectiveNode);
+        var storeNode = literal("store")
+                .then(literal("score")
+                        .then(argument("targetHolders", ScoreHolderArgumentType.scoreHolders())
+                                .suggests(ScoreHolderArgumentType.SUGGESTION_PROVIDER)
+                                .then(objectiveNode)))
+                .build();
+        // After the nodes it redirects to, so the server copies them first
+        var nodes = new ArrayList<>(next);
+        nodes.add(storeNode);
+        return nodes;
+    }
+
+    private List<CommandNode<ServerCommandSource>> buildTargetLevel(
+            boolean executable,
+            List<CommandNode<ServerCommandSource>> next) {
+        var holder = literal("target");
+        CommandNode<ServerCommandSource> host = null;
+        for (DataCommand.ObjectType type : DataCommand.TARGET_OBJECT_TYPES) {
+            var pathBuilder = argument("targetPath", NbtPathArgumentType.nbtPath());
+            var pathNode = (host == null ? then(pathBuilder, executable, next) : redirect(pathBuilder, executable, host, next)).build();
+            if (host == null) {
+                host = pathNode;
+            }
+            var typeHolder = literal("target");
+            type.addArgumentsToBuilder(typeHolder, builder -> builder.then(pathNode));
+            for (var typeNode : typeHolder.getArguments()) {
+                targetNodes.put(typeNode, type);
+                holder.then(typeNode);
+            }
+        }
+        return List.copyOf(holder.getArguments());
+    }
+
+    /**
+     * The {@code value} node holds the next level, and comes first so the server copies it before the nodes
+     * redirecting to it.
+     */
+    private List<CommandNode<ServerCommandSource>> buildSourceLevel(
+            int index,
+            boolean executable,
+            boolean all,
+            List<CommandNode<ServerCommandSource>> next) {
+        String sourceName = "source" + index;
+        String sourcePathName = "sourcePath" + index;
+        String valueName = "value" + index;
+        var holder = literal(sourceName);
+        var valueNode = then(argument(valueName, NbtElementArgumentType.nbtElement()), executable, next).build();
+        sourceNodes.put(valueNode, new IndexedSourceGetter(index, new StringCommand.ValueSourceGetter(valueName)));
+        holder.then(literal("value").then(valueNode));
+        String scoreHolderName = "scoreHolder" + index;
+        String scoreObjectiveName = "scoreObjective" + index;
+        var scoreNode = redirect(argument(scoreObjectiveName, ScoreboardObjectiveArgumentType.scoreboardObjective()), executable, valueNode, next).build();
+        sourceNodes.put(scoreNode, new IndexedSourceGetter(index, new StringCommand.ScoreSourceGetter(scoreHolderName, scoreObjectiveName)));
+        holder.then(literal("score")
+                .then(argument(scoreHolderName, ScoreHolderArgumentType.scoreHolder())
+                        .suggests(ScoreHolderArgumentType.SUGGESTION_PROVIDER)
+                        .then(scoreNode)));
+        for (Function<String, DataCommand.ObjectType> factory : DataCommand.OBJECT_TYPE_FACTORIES) {
+            DataCommand.ObjectType type = factory.apply(sourceName);
+            var pathNode = redirect(argument(sourcePathName, NbtPathArgumentType.nbtPath()), executable, valueNode, next).build();
+            sourceNodes.put(pathNode, new IndexedSourceGetter(index, new StringCommand.FromWithPathSourceGetter(type, sourcePathName)));
+            var from = type.addArgumentsToBuilder(literal("from"), builder -> redirectEach(builder, executable, next).then(pathNode));
+            for (var typeNode : from.getArguments()) {
+                sourceNodes.put(typeNode, new IndexedSourceGetter(index, new StringCommand.FromWithoutPathSourceGetter(type)));
+            }
+            holder.then(from);
+        }
+        if (all) {
+            var pathNode = redirect(argument(sourcePathName, NbtPathArgumentType.nbtPath()), executable, valueNode, next).build();
+            sourceNodes.put(pathNode, new IndexedSourceGetter(index, new StringCommand.EntitiesSourceGetter(sourceName, sourcePathName)));
+            var entitiesNode = redirectEach(argument(sourceName, EntityArgumentType.entities()), executable, next).then(pathNode).build();
+            sourceNodes.put(entitiesNode, new IndexedSourceGetter(index, new StringCommand.EntitiesSourceGetter(sourceName, null)));
+            holder.then(literal("from").then(literal("entities").then(entitiesNode)));
+        }
+        return List.copyOf(holder.getArguments());
+    }
+
+    /**
+     * Makes the builder hold the given nodes of the next level.
+     */
+    private ArgumentBuilder<ServerCommandSource, ?> then(
+            ArgumentBuilder<ServerCommandSource, ?> builder,
+            boolean executable,
+            List<CommandNode<ServerCommandSource>> next) {
+        for (var child : next) {
+            builder.then(child);
+        }
+        if (executable) {
+            builder.executes(executor);
+        }
+        return builder;
+    }
+
+    /**
+     * Makes the builder continue with the next level held by the given node. The builder must not have children.
+     */
+    private ArgumentBuilder<ServerCommandSource, ?> redirect(
+            ArgumentBuilder<ServerCommandSource, ?> builder,
+            boolean executable,
+            CommandNode<ServerCommandSource> host,
+            List<CommandNode<ServerCommandSource>> next) {
+        if (!next.isEmpty()) {
+            builder.redirect(host, LINK);
+        }
+        if (executable) {
+            builder.executes(executor);
+        }
+        return builder;
+    }
+
+    /**
+     * Makes the builder continue with the next level through a literal redirecting to each literal starting it,
+     * for builders with children of their own.
+     */
+    private ArgumentBuilder<ServerCommandSource, ?> redirectEach(
+            ArgumentBuilder<ServerCommandSource, ?> builder,
+            boolean executable,
+            List<CommandNode<ServerCommandSource>> next) {
+        for (var child : next) {
+            builder.then(literal(child.getName()).redirect(child, LINK));
+        }
+        if (executable) {
+            builder.executes(executor);
+        }
+        return builder;
+    }
+
+    private int execute(CommandContext<ServerCommandSource> ctx) throws CommandSyntaxException {
+        var chain = CHAINS.remove(ctx.getSource());
+        if (chain != null) {
+            chain.add(ctx);
+            ctx = merge(chain);
+        }
+        Method command = null;
+        for (ParsedCommandNode<ServerCommandSource> parsed : ctx.getNodes()) {
+            command = methods.get(parsed.getNode());
+            if (command != null) {
+                break;
+            }
+        }
+        if (command == null) {
+            throw StringCommand.TOO_FEW_ARGUMENT_EXCEPTION.create();
+        }
+        DataCommand.ObjectType target = null;
+        boolean scoreTarget = false;
+        var sourceGetters = new StringCommand.SourceGetter[command.maxSources];
+        var sourceKinds = new String[command.maxSources];
+        int sourceCount = 0;
+        var snapshots = new NbtSnapshotCache();
+        for (ParsedCommandNode<ServerCommandSource> parsed : ctx.getNodes()) {
+            var node = parsed.getNode();
+            if (scoreTargetNodes.contains(node)) {
+                scoreTarget = true;
+                continue;
+            }
+            var targetType = targetNodes.get(node);
+            if (targetType != null) {
+                target = targetType;
+                snapshots.setKey(targetType, node.getName(), "target");
+                continue;
+            }
+            var source = sourceNodes.get(node);
+            if (source != null) {
+                // The typed path node comes after the type node of the same source, and replaces its getter
+                sourceGetters[source.index] = source.getter;
+                sourceCount = Math.max(sourceCount, source.index + 1);
+                if (source.getter instanceof StringCommand.FromWithoutPathSourceGetter getter) {
+                    snapshots.setKey(getter.getSource(), node.getName(), "source" + source.index);
+                    sourceKinds[source.index] = node.getName();
+                } else if (source.getter instanceof StringCommand.ValueSourceGetter) {
+                    sourceKinds[source.index] = "value";
+                } else if (source.getter instanceof StringCommand.ScoreSourceGetter) {
+                    sourceKinds[source.index] = "score";
+                } else if (source.getter instanceof StringCommand.EntitiesSourceGetter) {
+                    sourceKinds[source.index] = "entities";
+                }
+            }
+        }
+        var event = new StringMethodEvent();
+        boolean timed = event.isEnabled();
+        event.begin();
+        long readStartTime = timed ? System.nanoTime() : 0;
+        var targetObject = target == null ? null : snapshots.getObject(target, ctx);
+        var targetPath = target == null ? null : NbtPathArgumentType.getNbtPath(ctx, "targetPath");
+        @SuppressWarnings("unchecked")
+        Pair<NbtElement, NbtPathArgumentType.NbtPath>[] sources = new Pair[command.all ? 0 : sourceCount];
+        long inputChars = 0;
+        List<NbtElement> sourceMatches = null;
+        if (command.all) {
+            // Map methods have a single source
+            sourceMatches = sourceGetters[0].getAllSourceElements(ctx, snapshots);
+            for (NbtElement element : sourceMatches) {
+                inputChars += StringCommand.countChars(element);
+            }
+        }
+        for (int i = 0; i < sources.length; i++) {
+            // Resolved here once, so methods get the element without walking the path again
+            var element = StringCommand.getNbtElement(sourceGetters[i].CreatePair(ctx, snapshots));
+            sources[i] = new Pair<>(element, null);
+            inputChars += StringCommand.countChars(element);
+        }
+        var scc = new StringCommandContext(targetObject, targetPath, sources, snapshots);
+        scc.setSourceMatches(sourceMatches);
+        scc.setTimed(timed);
+        boolean failed = true;
+        long startTime = System.nanoTime();
+        try {
+            int result = command.exec.apply(ctx, scc);
+            if (scoreTarget) {
+                StringCommand.setTargetScores(ctx, scc, result);
+            }
+            failed = false;
+            return result;
+        } catch (IntegerOutOfRangeException e) {
+            throw StringCommand.toCommandSyntaxException(e);
+        } catch (StringBuilderRegistry.CapacityExceededException e) {
+            throw StringCommand.toCommandSyntaxException(e);
+        } catch (RegexBudget.TimeoutException e) {
+            throw StringCommand.toCommandSyntaxException(e);
+        } catch (StringTooLongException e) {
+            throw StringCommand.toCommandSyntaxException(e);
+        } finally {
+            long nanos = System.nanoTime() - startTime;
+            command.stats.record(nanos, inputChars, scc.getOutputChars(), failed);
+            if (timed) {
+                event.end();
+                if (event.shouldCommit()) {
+                    event.method = command.stats.getName();
+                    event.sourceKind = String.join(",", Arrays.asList(sourceKinds).subList(0, sourceCount));
+                    event.inputLength = inputChars;
+                    event.outputLength = scc.getOutputChars();
+                    event.readTime = startTime - readStartTime;
+                    event.operationTime = nanos - scc.getWriteNanos();
+                    event.writeTime = scc.getWriteNanos();
+                    event.failed = failed;
+                    event.commit();
+                }
+            }
+        }
+    }
+
+    /**
+     * @param all whether the sources of the methods read every element matched by their path, see
+     *            {@link #buildAllArgument(String)}
+     * @param tail what follows the last source, if anything
+     */
+    private record Shape(boolean hasTarget, int minSources, int maxSources, Tail tail, boolean all) {
+    }
+
+    /**
+     * A literal and a greedy string argument
+     */
+    private record Tail(String separator, String argumentName) {
+    }
+
+    private record Method(
+            StringCommand.StringCommandExec<ServerCommandSource> exec,
+            MethodStats stats,
+            int maxSources,
+            boolean all) {
+    }
+
+    private record IndexedSourceGetter(int index, StringCommand.SourceGetter getter) {
+    }
+}
@@ -0,0 +1,46 @@
+package net.myitian.command;
+
+import jdk.jfr.*;
+
+/**
+ * A JFR event for each execution of a {@code /string} method, to line up slow commands with GC and tick lag in
+ * flight recordings. Disabled by default; enable {@code net.myitian.StringMethod} in the recording settings.
+ * Its duration covers reading the sources, the operation and writing the target.
+ */
+@Name("net.myitian.StringMethod")
+@Label("String Method")
+@Description("Execution of a /string method")
+@Category({"Minecraft", "String Utilities"})
+@Enabled(false)
+@StackTrace(false)
+class StringMethodEvent extends Event {
+    @Label("Method")
+    String method;
+
+    @Label("Source Kind")
+    @Description("value, entity, block or storage for each source, separated by commas")
+    String sourceKind;
+
+    @Label("Input Length")
+    @Description("Total length of the string sources")
+    long inputLength;
+
+    @Label("Output Length")
+    @Description("Total length of the strings written to the target")
+    long outputLength;
+
+    @Label("Read Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long readTime;
+
+    @Label("Operation Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long operationTime;
+
+    @Label("Write Time")
+    @Timespan(Timespan.NANOSECONDS)
+    long writeTime;
+
+    @Label("Failed")
+    boolean failed;
+}
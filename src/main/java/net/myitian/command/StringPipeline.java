@@ -0,0 +1,254 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.StringReader;
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import net.minecraft.nbt.AbstractNbtList;
+import net.minecraft.nbt.NbtElement;
+import net.minecraft.nbt.NbtString;
+import net.minecraft.text.Text;
+import net.myitian.CodePointSet;
+import net.myitian.LruCache;
+import net.myitian.StringExtension;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * A chain of string methods parsed from {@code <method> [arguments...] then <method> [arguments...] ...}.
+ * Intermediate results stay as Java strings, only the result of the last method is converted to NBT.
+ */
+public class StringPipeline {
+    public static final String SEPARATOR = "then";
+    public static final int DEFAULT_CACHE_CAPACITY = 64;
+
+    public static final DynamicCommandExceptionType UNKNOWN_METHOD_EXCEPTION = // Unknown pipeline method: %s
+            new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.pipe.unknown_method", name));
+    public static final DynamicCommandExceptionType NOT_LAST_METHOD_EXCEPTION = // Method %s can only be the last one of a pipeline
+            new DynamicCommandExceptionType(name -> Text.translatable("commands.string-utilities.string.pipe.not_last_method", name));
+    public static final SimpleCommandExceptionType EXPECTED_SEPARATOR_EXCEPTION = // Expected 'then'
+            new SimpleCommandExceptionType(Text.translatable("commands.string-utilities.string.pipe.expected_separator"));
+
+    private static final Map<String, StageParser> STAGES = new LinkedHashMap<>();
+    private static final Map<String, TerminalStageParser> TERMINAL_STAGES = new LinkedHashMap<>();
+    private static final LruCache<String, StringPipeline> CACHE = new LruCache<>(DEFAULT_CACHE_CAPACITY);
+
+    static {
+        STAGES.put("toString", reader -> s -> s);
+        STAGES.put("escape", reader -> StringExtension::escape);
+        STAGES.put("escapeNbt", reader -> NbtString::escape);
+        STAGES.put("escapeRegex", reader -> StringExtension::escapeRegex);
+        STAGES.put("toLowerCase", reader -> String::toLowerCase);
+        STAGES.put("toUpperCase", reader -> String::toUpperCase);
+        STAGES.put("strip", reader -> StringExtension::strip);
+        STAGES.put("stripLeading", reader -> StringExtension::stripLeading);
+        STAGES.put("stripTrailing", reader -> StringExtension::stripTrailing);
+        STAGES.put("trim", reader -> {
+            CodePointSet trimChars = hasArgument(reader) ? CodePointSet.of(reader.readString()) : null;
+            return s -> StringExtension.trim(s, trimChars);
+        });
+        STAGES.put("trimStart", reader -> {
+            CodePointSet trimChars = hasArgument(reader) ? CodePointSet.of(reader.readString()) : null;
+            return s -> StringExtension.trimStart(s, trimChars);
+        });
+        STAGES.put("trimEnd", reader -> {
+            CodePointSet trimChars = hasArgument(reader) ? CodePointSet.of(reader.readString()) : null;
+            return s -> StringExtension.trimEnd(s, trimChars);
+        });
+        STAGES.put("at", reader -> {
+            int index = readInt(reader);
+            return s -> StringExtension.at(s, index);
+        });
+        STAGES.put("repeat", reader -> {
+            int count = readInt(reader);
+            return s -> StringExtension.repeat(s, count);
+        });
+        STAGES.put("concat2", reader -> {
+            var suffixes = new ArrayList<String>();
+            suffixes.add(readString(reader));
+            while (hasArgument(reader)) {
+                suffixes.add(reader.readString());
+            }
+            String suffix = StringExtension.concat(suffixes.toArray(new String[0]));
+            return s -> s + suffix;
+        });
+        STAGES.put("substring", reader -> {
+            int begin = readInt(reader);
+            if (hasArgument(reader)) {
+                int end = reader.readInt();
+                return s -> StringExtension.substring(s, begin, end);
+            }
+            return s -> StringExtension.substring(s, begin);
+        });
+        STAGES.put("substring2", reader -> {
+            int begin = readInt(reader);
+            if (hasArgument(reader)) {
+                int length = reader.readInt();
+                return s -> StringExtension.substring2(s, begin, length);
+            }
+            return s -> StringExtension.substring(s, begin);
+        });
+        STAGES.put("replace", reader -> {
+            String target = readString(reader);
+            String replacement = readString(reader);
+            return s -> s.replace(target, replacement);
+        });
+        STAGES.put("replaceAll", reader -> {
+            String regex = readString(reader);
+            String replacement = readString(reader);
+            return s -> StringExtension.replaceAll(s, regex, replacement);
+        });
+        STAGES.put("replaceFirst", reader -> {
+            String regex = readString(reader);
+            String replacement = readString(reader);
+            return s -> StringExtension.replaceFirst(s, regex, replacement);
+        });
+        STAGES.put("replaceFirstLiteral", reader -> {
+            String target = readString(reader);
+            String replacement = readString(reader);
+            return s -> StringExtension.replaceFirstLiteral(s, target, replacement);
+        });
+
+        TERMINAL_STAGES.put("toCharArray", reader -> StringCommand::createCharList);
+        TERMINAL_STAGES.put("toCodePointStrings", reader -> StringCommand::createCodePointStringList);
+        TERMINAL_STAGES.put("toCodePoints", reader -> StringCommand::createCodePointArray);
+        TERMINAL_STAGES.put("split", reader -> {
+            String regex = readString(reader);
+            int limit = hasArgument(reader) ? reader.readInt() : 0;
+            return s -> StringCommand.createSplitList(s, regex, limit, false, false);
+        });
+        TERMINAL_STAGES.put("splitLiteral", reader -> {
+            String separator = readString(reader);
+            int limit = hasArgument(reader) ? reader.readInt() : 0;
+            return s -> StringCommand.createSplitList(s, separator, limit, true, false);
+        });
+    }
+
+    private final Stage[] stages;
+    private final TerminalStage terminalStage;
+
+    private StringPipeline(Stage[] stages, TerminalStage terminalStage) {
+        this.stages = stages;
+        this.terminalStage = terminalStage;
+    }
+
+    /**
+     * Parses the pipeline, or returns the cached result of an earlier parse.
+     */
+    public static StringPipeline get(String input) throws CommandSyntaxException {
+        StringPipeline pipeline = CACHE.get(input);
+        if (pipeline == null) {
+            pipeline = parse(new StringReader(input));
+            CACHE.put(input, pipeline);
+        }
+        return pipeline;
+    }
+
+    public static StringPipeline parse(StringReader reader) throws CommandSyntaxException {
+        var stages = new ArrayList<Stage>();
+        TerminalStage terminalStage = null;
+        String terminalStageName = null;
+        while (true) {
+            reader.skipWhitespace();
+            int start = reader.getCursor();
+            String name = reader.readUnquotedString();
+            if (terminalStage != null) {
+                reader.setCursor(start);
+                throw NOT_LAST_METHOD_EXCEPTION.createWithContext(reader, terminalStageName);
+            }
+            StageParser stageParser = STAGES.get(name);
+            if (stageParser != null) {
+                stages.add(stageParser.parse(reader));
+            } else {
+                TerminalStageParser terminalStageParser = TERMINAL_STAGES.get(name);
+                if (terminalStageParser == null) {
+                    reader.setCursor(start);
+                    throw UNKNOWN_METHOD_EXCEPTION.createWithContext(reader, name);
+                }
+                terminalStage = terminalStageParser.parse(reader);
+                terminalStageName = name;
+            }
+            reader.skipWhitespace();
+            if (!reader.canRead()) {
+                break;
+            }
+            if (!SEPARATOR.equals(reader.readUnquotedString())) {
+                throw EXPECTED_SEPARATOR_EXCEPTION.createWithContext(reader);
+            }
+        }
+        return new StringPipeline(stages.toArray(new Stage[0]), terminalStage);
+    }
+
+    public static void setCacheCapacity(int capacity) {
+        CACHE.setCapacity(capacity);
+    }
+
+    private static boolean hasArgument(StringReader reader) {
+        reader.skipWhitespace();
+        if (!reader.canRead()) {
+            return false;
+        }
+        int cursor = reader.getCursor();
+        boolean isSeparator = SEPARATOR.equals(reader.readUnquotedString());
+        reader.setCursor(cursor);
+        return !isSeparator;
+    }
+
+    private static String readString(StringReader reader) throws CommandSyntaxException {
+        reader.skipWhitespace();
+        return reader.readString();
+    }
+
+    private static int readInt(StringReader reader) throws CommandSyntaxException {
+        reader.skipWhitespace();
+        return reader.readInt();
+    }
+
+    /**
+     * @return whether the result of {@link #apply(String)} is a list rather than a string
+     */
+    public boolean hasListResult() {
+        return terminalStage != null;
+    }
+
+    public String applyStages(String s) throws CommandSyntaxException {
+        for (Stage stage : stages) {
+            s = stage.apply(s);
+        }
+        return s;
+    }
+
+    public NbtElement apply(String s) throws CommandSyntaxException {
+        s = applyStages(s);
+        return terminalStage == null ? StringCommand.createNbtString(s) : terminalStage.apply(s);
+    }
+
+    /**
+     * @return the count of elements if the result is a list, 1 otherwise
+     */
+    public static int getResultValue(NbtElement result) {
+        return result instanceof AbstractNbtList<?> list ? list.size() : 1;
+    }
+
+    @FunctionalInterface
+    public interface Stage {
+        String apply(String s) throws CommandSyntaxException;
+    }
+
+    @FunctionalInterface
+    public interface TerminalStage {
+        NbtElement apply(String s) throws CommandSyntaxException;
+    }
+
+    @FunctionalInterface
+    private interface StageParser {
+        Stage parse(StringReader reader) throws CommandSyntaxException;
+    }
+
+    @FunctionalInterface
+    private interface TerminalStageParser {
+        TerminalStage parse(StringReader reader) throws CommandSyntaxException;
+    }
+}
@@ -0,0 +1,57 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.builder.LiteralArgumentBuilder;
+import com.mojang.brigadier.exceptions.DynamicCommandExceptionType;
+import com.mojang.brigadier.exceptions.SimpleCommandExceptionType;
+import net.minecraft.server.command.ServerCommandSource;
+import net.minecraft.text.Text;
+
+import static com.mojang.brigadier.Command.SINGLE_SUCCESS;
+import static net.minecraft.server.command.CommandManager.literal;
+
+/**
+ * {@code /string begin}, {@code /string commit} and {@code /string rollback}, see {@link WriteTransaction}.
+ */
+public class TransactionCommand {
+    public static final SimpleCommandExceptionType ALREADY_OPEN_EXCEPTION = // A /string transaction is already open
+            new SimpleCommandExceptionType(Text.translatable("commands.string-utilities.string.transaction.already_open"));
+    public static final SimpleCommandExceptionType NOT_OPEN_EXCEPTION = // No /string transaction is open
+            new SimpleCommandExceptionType(Text.translatable("commands.string-utilities.string.transaction.not_open"));
+    public static final DynamicCommandExceptionType CONFLICT_EXCEPTION = // Path %s was changed outside the /string transaction, its object was not written
+            new DynamicCommandExceptionType(path -> Text.translatable("commands.string-utilities.string.transaction.conflict", path));
+
+    public static LiteralArgumentBuilder<ServerCommandSource> buildBegin() {
+        return literal("begin")
+                .executes(ctx -> {
+                    if (!WriteTransaction.begin()) {
+                        throw ALREADY_OPEN_EXCEPTION.create();
+                    }
+                    ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.transaction.begun"), false);
+                    return SINGLE_SUCCESS;
+                });
+    }
+
+    public static LiteralArgumentBuilder<ServerCommandSource> buildCommit() {
+        return literal("commit")
+                .executes(ctx -> {
+                    int count = WriteTransaction.commit();
+                    if (count < 0) {
+                        throw NOT_OPEN_EXCEPTION.create();
+                    }
+                    ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.transaction.committed", count), true);
+                    return count;
+                });
+    }
+
+    public static LiteralArgumentBuilder<ServerCommandSource> buildRollback() {
+        return literal("rollback")
+                .executes(ctx -> {
+                    int count = WriteTransaction.rollback();
+                    if (count < 0) {
+                        throw NOT_OPEN_EXCEPTION.create();
+                    }
+                    ctx.getSource().sendFeedback(() -> Text.translatable("commands.string-utilities.string.transaction.rolled_back", count), true);
+                    return count;
+                });
+    }
+}
@@ -0,0 +1,205 @@
+package net.myitian.command;
+
+import com.mojang.brigadier.exceptions.CommandSyntaxException;
+import net.minecraft.command.DataCommandObject;
+import net.minecraft.command.argument.NbtPathArgumentType;
+import net.minecraft.nbt.NbtCompound;
+import net.minecraft.nbt.NbtElement;
+import net.myitian.StringUtilities;
+
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Buffers the target writes of {@code /string} methods between {@code /string begin} and {@code /string commit},
+ * so each entity, block or storage is read once and written back once with {@link DataCommandObject#setNbt},
+ * however many methods write to it.
+ * <p>
+ * Methods write to a copy of the NBT taken when the object joins the transaction, so a rollback leaves the object
+ * untouched. A commit reads the object again and only puts the final values of the paths written to, so changes
+ * made by other commands since the copy was taken are kept. If another command changed one of those paths, the
+ * object is not written and the commit fails, instead of silently replacing that change.
+ * <p>
+ * There is at most one open transaction, shared by every command source, since commands only run on the server
+ * thread. Objects are identified by the entity, the block position in its world, or the storage id, so {@code @s}
+ * of different executors are different objects. Sources read from an object in the transaction see its pending
+ * writes. A transaction left open is committed at the end of the tick.
+ */
+public class WriteTransaction {
+    private static WriteTransaction current;
+
+    private final Map<Object, Entry> entries = new LinkedHashMap<>();
+    private final Map<DataCommandObject, Entry> byObject = new IdentityHashMap<>();
+
+    /**
+     * @return the open transaction, or null if there is none
+     */
+    public static WriteTransaction getCurrent() {
+        return current;
+    }
+
+    /**
+     * @return false if a transaction is already open
+     */
+    public static boolean begin() {
+        if (current != null) {
+            return false;
+        }
+        current = new WriteTransaction();
+        return true;
+    }
+
+    /**
+     * Writes every object with pending writes. If some cannot be written, the others still are.
+     *
+     * @return the count of objects written, or -1 if no transaction is open
+     * @throws CommandSyntaxException the first error of reading, putting or {@link DataCommandObject#setNbt}, or
+     *                                {@link TransactionCommand#CONFLICT_EXCEPTION} for a path changed by another
+     *                                command
+     */
+    public static int commit() throws CommandSyntaxException {
+        var transaction = current;
+        if (transaction == null) {
+            return -1;
+        }
+        current = null;
+        int count = 0;
+        CommandSyntaxException error = null;
+        for (var entry : transaction.entries.values()) {
+            if (entry.writes.isEmpty()) {
+                continue;
+            }
+            try {
+                NbtCompound nbt = entry.object.getNbt();
+                for (var path : entry.writes.values()) {
+                    if (!getOrEmpty(path, nbt).equals(getOrEmpty(path, entry.base))) {
+                        throw TransactionCommand.CONFLICT_EXCEPTION.create(path.getString());
+                    }
+                }
+                for (var path : entry.writes.values()) {
+                    List<NbtElement> values = getOrEmpty(path, entry.nbt);
+                    // Empty if replaced by a later write to a path leading to it, which is also in the list
+                    if (!values.isEmpty()) {
+                        path.put(nbt, values.get(0));
+                    }
+                }
+                entry.object.setNbt(nbt);
+                count++;
+            } catch (CommandSyntaxException e) {
+                if (error == null) {
+                    error = e;
+                }
+            }
+        }
+        if (error != null) {
+            throw error;
+        }
+        return count;
+    }
+
+    /**
+     * Commits a transaction some function forgot to commit, called at the end of every tick.
+     */
+    public static void commitLeftOpen() {
+        if (current == null) {
+            return;
+        }
+        StringUtilities.LOGGER.warn("A /string transaction was left open until the end of the tick, committing it");
+        try {
+            commit();
+        } catch (CommandSyntaxException e) {
+            StringUtilities.LOGGER.warn("Failed to commit a /string transaction: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * Also called when the server stops, so no transaction holds objects of a stopped server.
+     *
+     * @return the count of objects whose pending writes were dropped, or -1 if no transaction is open
+     */
+    public static int rollback() {
+        var transaction = current;
+        if (transaction == null) {
+            return -1;
+        }
+        current = null;
+        int count = 0;
+        for (var entry : transaction.entries.values()) {
+            if (!entry.writes.isEmpty()) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * @param identity the entity, block or storage the object refers to, resolved together with the object
+     * @return the object already in the transaction with the same identity, or the given one after adding it
+     */
+    public DataCommandObject track(DataCommandObject object, Object identity) {
+        var entry = entries.get(identity);
+        if (entry == null) {
+            entry = new Entry(object);
+            entries.put(identity, entry);
+            byObject.put(object, entry);
+        }
+        return entry.object;
+    }
+
+    /**
+     * @return a copy of the NBT of a tracked object, with the pending writes, or null if the object is not tracked
+     */
+    public NbtCompound getNbt(DataCommandObject object) throws CommandSyntaxException {
+        var entry = byObject.get(object);
+        if (entry == null) {
+            return null;
+        }
+        if (entry.nbt == null) {
+            // Storages return their live compound, which must not change before the commit
+            entry.base = object.getNbt().copy();
+            entry.nbt = entry.base.copy();
+        }
+        return entry.nbt;
+    }
+
+    /**
+     * Records that the path of the NBT from {@link #getNbt} was written to, so its value is put at the commit.
+     *
+     * @return false if the object is not tracked, so it has to be written now
+     */
+    public boolean recordWrite(DataCommandObject object, NbtPathArgumentType.NbtPath path) {
+        var entry = byObject.get(object);
+        if (entry == null || entry.nbt == null) {
+            return false;
+        }
+        entry.writes.putIfAbsent(path.getString(), path);
+        return true;
+    }
+
+    private static List<NbtElement> getOrEmpty(NbtPathArgumentType.NbtPath path, NbtCompound nbt) {
+        try {
+            return path.get(nbt);
+        } catch (CommandSyntaxException e) {
+            return List.of();
+        }
+    }
+
+    private static class Entry {
+        private final DataCommandObject object;
+        /**
+         * The paths written to, by their text, in the order they were first written to
+         */
+        private final Map<String, NbtPathArgumentType.NbtPath> writes = new LinkedHashMap<>();
+        /**
+         * The NBT when the object joined the transaction, to find paths other commands changed since
+         */
+        private NbtCompound base;
+        private NbtCompound nbt;
+
+        private Entry(DataCommandObject object) {
+            this.object = object;
+        }
+    }
+}